@@ -0,0 +1,122 @@
+package com.markdown.benchmark;
+
+import java.util.Random;
+
+/**
+ * Deterministic markdown documents for benchmarks: the same mix and size always produce the same text.
+ */
+final class BenchmarkDocuments {
+
+    private static final long SEED = 20240101L;
+
+    private static final String[] WORDS = {
+            "note", "markdown", "render", "grammar", "the", "a", "of", "and", "quickly", "document", "server",
+            "request", "cache", "index", "search", "paragraph", "heading", "list", "table", "value", "is", "are",
+            "with", "without", "for", "each", "every", "update", "delete", "save", "read", "write", "their", "there"
+    };
+
+    private BenchmarkDocuments() {
+    }
+
+    /**
+     * Build a document of roughly the given size out of blocks of the given mix:
+     * prose, tables, code, lists (nested) or mixed
+     */
+    static String generate(String mix, int size) {
+        Random random = new Random(SEED);
+        StringBuilder markdown = new StringBuilder(size + 1024);
+        markdown.append("# Benchmark document\n\n");
+        int block = 0;
+        while (markdown.length() < size) {
+            String kind = mix.equals("mixed") ? new String[]{"prose", "tables", "code", "lists"}[block % 4] : mix;
+            switch (kind) {
+                case "prose" -> appendProse(markdown, random);
+                case "tables" -> appendTable(markdown, random);
+                case "code" -> appendCode(markdown, random);
+                case "lists" -> appendList(markdown, random);
+                default -> throw new IllegalArgumentException("Unknown document mix: " + mix);
+            }
+            if (block % 8 == 7) {
+                markdown.append("## Section ").append(block / 8 + 1).append("\n\n");
+            }
+            block++;
+        }
+        return markdown.toString();
+    }
+
+    /**
+     * Plain prose with a few grammar mistakes, for grammar checking
+     */
+    static String prose(int paragraphs) {
+        Random random = new Random(SEED);
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < paragraphs; i++) {
+            appendProse(text, random);
+        }
+        return text.toString();
+    }
+
+    private static void appendProse(StringBuilder markdown, Random random) {
+        int sentences = 3 + random.nextInt(4);
+        for (int i = 0; i < sentences; i++) {
+            String sentence = sentence(random);
+            markdown.append(Character.toUpperCase(sentence.charAt(0))).append(sentence, 1, sentence.length());
+            if (random.nextInt(4) == 0) {
+                markdown.append(" with **emphasis** and a [link](https://example.com/").append(random.nextInt(100)).append(')');
+            }
+            markdown.append(". ");
+        }
+        markdown.append("\n\n");
+    }
+
+    private static void appendTable(StringBuilder markdown, Random random) {
+        markdown.append("| Name | Value | Description |\n| --- | ---: | --- |\n");
+        int rows = 3 + random.nextInt(6);
+        for (int i = 0; i < rows; i++) {
+            markdown.append("| ").append(word(random)).append(" | ").append(random.nextInt(10_000))
+                    .append(" | ").append(sentence(random)).append(" |\n");
+        }
+        markdown.append('\n');
+    }
+
+    private static void appendCode(StringBuilder markdown, Random random) {
+        markdown.append("```java\n");
+        int lines = 4 + random.nextInt(8);
+        for (int i = 0; i < lines; i++) {
+            markdown.append("    String ").append(word(random)).append(i).append(" = service.")
+                    .append(word(random)).append("(\"").append(word(random)).append("\");\n");
+        }
+        markdown.append("```\n\nInline `code()` next to prose.\n\n");
+    }
+
+    private static void appendList(StringBuilder markdown, Random random) {
+        int items = 3 + random.nextInt(4);
+        for (int i = 0; i < items; i++) {
+            markdown.append("- ").append(sentence(random)).append('\n');
+            int nested = random.nextInt(3);
+            for (int j = 0; j < nested; j++) {
+                markdown.append("  1. ").append(sentence(random)).append('\n');
+                if (random.nextBoolean()) {
+                    markdown.append("     - *").append(word(random)).append("* ").append(sentence(random)).append('\n');
+                }
+            }
+        }
+        markdown.append('\n');
+    }
+
+    private static String sentence(Random random) {
+        int words = 6 + random.nextInt(10);
+        StringBuilder sentence = new StringBuilder();
+        for (int i = 0; i < words; i++) {
+            if (i > 0) {
+                sentence.append(' ');
+            }
+            sentence.append(word(random));
+        }
+        return sentence.toString();
+    }
+
+    private static String word(Random random) {
+        return WORDS[random.nextInt(WORDS.length)];
+    }
+}
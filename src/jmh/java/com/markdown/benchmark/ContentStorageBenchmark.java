@@ -0,0 +1,70 @@
+package com.markdown.benchmark;
+
+import com.markdown.entity.CompressedTextConverter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of storing note content raw or deflated at different levels (CompressedTextConverter), against the bytes it saves.
+ * <ul>
+ *     <li>{@code write}: encoding content for the database, as on every save</li>
+ *     <li>{@code read}: decoding stored content, as on every read of a note body</li>
+ * </ul>
+ * The stored size of each document is printed once per trial, to weigh the latency against the footprint.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+@State(Scope.Benchmark)
+public class ContentStorageBenchmark {
+
+    @Param({"1024", "16384", "262144"})
+    public int size;
+
+    @Param({"prose", "tables", "code", "lists", "mixed"})
+    public String mix;
+
+    // Deflater level, or off to store raw UTF-8
+    @Param({"off", "1", "6"})
+    public String compression;
+
+    private CompressedTextConverter converter;
+    private String document;
+    private byte[] stored;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        boolean enabled = !compression.equals("off");
+        converter = new CompressedTextConverter(enabled, 1024, enabled ? Integer.parseInt(compression) : 1);
+        document = BenchmarkDocuments.generate(mix, size);
+        stored = converter.convertToDatabaseColumn(document);
+
+        int utf8Length = document.getBytes(StandardCharsets.UTF_8).length;
+        System.out.printf("%nStored %d of %d bytes (%.1f%%)%n", stored.length, utf8Length, 100.0 * stored.length / utf8Length);
+    }
+
+    @Benchmark
+    public byte[] write() {
+        return converter.convertToDatabaseColumn(document);
+    }
+
+    @Benchmark
+    public String read() {
+        return converter.convertToEntityAttribute(stored);
+    }
+}
@@ -0,0 +1,104 @@
+package com.markdown.benchmark;
+
+import com.markdown.dto.GrammarCheckMode;
+import com.markdown.dto.GrammarCheckResponse;
+import com.markdown.service.ComputePool;
+import com.markdown.service.GrammarService;
+import com.markdown.service.LanguageToolPool;
+import com.markdown.service.MarkdownService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * GrammarService.checkGrammar on a mixed markdown note, in plain and markdown mode.
+ * Cold checks use a fresh paragraph cache for every call; the contended benchmark runs more threads than
+ * there are pooled LanguageTool instances.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+@State(Scope.Benchmark)
+public class GrammarBenchmark {
+
+    private static final int POOL_SIZE = 2;
+
+    @Param({"plain", "markdown"})
+    public String mode;
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private ComputePool computePool;
+    private LanguageToolPool languageToolPool;
+    private MarkdownService markdownService;
+    private GrammarService cachedService;
+    private GrammarCheckMode checkMode;
+    private String document;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        computePool = new ComputePool(POOL_SIZE);
+        languageToolPool = new LanguageToolPool(computePool, meterRegistry, POOL_SIZE, 600_000, 64, 0);
+        languageToolPool.warmUp();
+        markdownService = new MarkdownService(computePool, meterRegistry, 10_000, 64L << 20, 32L << 20, 65_536);
+        cachedService = new GrammarService(languageToolPool, markdownService, meterRegistry, 50_000);
+        checkMode = GrammarCheckMode.fromParameter(mode);
+        document = BenchmarkDocuments.generate("mixed", 4096);
+        cachedService.checkGrammar(document, checkMode);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        computePool.shutdown();
+    }
+
+    /**
+     * A grammar service with an empty paragraph cache, so that every paragraph goes through LanguageTool
+     */
+    @State(Scope.Thread)
+    public static class ColdService {
+
+        GrammarService service;
+
+        @Setup(Level.Invocation)
+        public void setUp(GrammarBenchmark benchmark) {
+            service = new GrammarService(benchmark.languageToolPool, benchmark.markdownService,
+                    benchmark.meterRegistry, 50_000);
+        }
+    }
+
+    @Benchmark
+    @Threads(1)
+    public GrammarCheckResponse checkCold(ColdService cold) {
+        return cold.service.checkGrammar(document, checkMode);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public GrammarCheckResponse checkContended(ColdService cold) {
+        return cold.service.checkGrammar(document, checkMode);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public GrammarCheckResponse checkCached() {
+        return cachedService.checkGrammar(document, checkMode);
+    }
+}
@@ -0,0 +1,83 @@
+package com.markdown.benchmark;
+
+import com.markdown.service.ComputePool;
+import com.markdown.service.MarkdownService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * MarkdownService.convertToHtml across document sizes and feature mixes.
+ * <ul>
+ *     <li>{@code renderCold}: a full parse and render, the render caches never hit</li>
+ *     <li>{@code renderEdited}: one block changes per call; large documents reuse the other blocks' HTML</li>
+ *     <li>{@code renderCached}: unchanged content, served from the render cache</li>
+ * </ul>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+@State(Scope.Benchmark)
+public class MarkdownBenchmark {
+
+    @Param({"1024", "16384", "262144"})
+    public int size;
+
+    @Param({"prose", "tables", "code", "lists", "mixed"})
+    public String mix;
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private ComputePool computePool;
+    private MarkdownService fullRenders;
+    private MarkdownService incrementalRenders;
+    private MarkdownService cachedRenders;
+    private String document;
+    private long edit;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        computePool = new ComputePool(1);
+        fullRenders = new MarkdownService(computePool, meterRegistry, 10_000, 64L << 20, 32L << 20, Integer.MAX_VALUE);
+        incrementalRenders = new MarkdownService(computePool, meterRegistry, 10_000, 64L << 20, 32L << 20, 65_536);
+        cachedRenders = new MarkdownService(computePool, meterRegistry, 10_000, 64L << 20, 32L << 20, 65_536);
+        document = BenchmarkDocuments.generate(mix, size);
+        cachedRenders.convertToHtml(document);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        computePool.shutdown();
+    }
+
+    @Benchmark
+    public String renderCold() {
+        // A unique trailing block makes every call a cache miss
+        return fullRenders.convertToHtml(document + "\n\nEdit " + edit++ + "\n");
+    }
+
+    @Benchmark
+    public String renderEdited() {
+        return incrementalRenders.convertToHtml(document + "\n\nEdit " + edit++ + "\n");
+    }
+
+    @Benchmark
+    public String renderCached() {
+        return cachedRenders.convertToHtml(document);
+    }
+}
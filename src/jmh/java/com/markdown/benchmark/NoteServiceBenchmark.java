@@ -0,0 +1,110 @@
+package com.markdown.benchmark;
+
+import com.markdown.MarkdownNotesApplication;
+import com.markdown.dto.NotePageResponse;
+import com.markdown.dto.NoteRequest;
+import com.markdown.dto.NoteResponse;
+import com.markdown.service.NoteService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * NoteService save, get and list against an in-memory H2 database, with the full application context
+ * (render-on-write, search indexing, database bulkhead) but without the web layer.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+@State(Scope.Benchmark)
+public class NoteServiceBenchmark {
+
+    private static final int SEEDED_NOTES = 1_000;
+
+    private ConfigurableApplicationContext context;
+    private NoteService noteService;
+    private Path dataDirectory;
+    private List<Long> noteIds;
+    private NoteRequest request;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        dataDirectory = Files.createTempDirectory("note-benchmark");
+        // Arguments, not builder properties: those are only defaults, which application.properties overrides
+        context = new SpringApplicationBuilder(MarkdownNotesApplication.class)
+                .web(WebApplicationType.NONE)
+                .run(
+                        "--spring.datasource.url=jdbc:h2:mem:benchmark;DB_CLOSE_DELAY=-1",
+                        "--spring.jpa.hibernate.ddl-auto=create-drop",
+                        "--spring.jpa.show-sql=false",
+                        "--spring.h2.console.enabled=false",
+                        "--logging.level.root=WARN",
+                        "--logging.level.com.markdown=WARN",
+                        "--grammar.pool.size=1",
+                        "--search.index.path=" + dataDirectory.resolve("search-index"),
+                        "--grammar.lint.output-dir=" + dataDirectory.resolve("grammar-lint"));
+        noteService = context.getBean(NoteService.class);
+
+        String content = BenchmarkDocuments.generate("mixed", 4096);
+        noteIds = new ArrayList<>(SEEDED_NOTES);
+        for (int i = 0; i < SEEDED_NOTES; i++) {
+            noteIds.add(noteService.saveNote(new NoteRequest("Seeded note " + i, content)).getId());
+        }
+        request = new NoteRequest("Benchmark note", content);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        context.close();
+        FileSystemUtils.deleteRecursively(dataDirectory);
+    }
+
+    @Benchmark
+    public NoteResponse save() {
+        return noteService.saveNote(request);
+    }
+
+    @Benchmark
+    public NoteResponse get() {
+        return noteService.getNoteById(randomId());
+    }
+
+    @Benchmark
+    @Threads(8)
+    public NoteResponse getContended() {
+        return noteService.getNoteById(randomId());
+    }
+
+    @Benchmark
+    public NotePageResponse listFirstPage() {
+        return noteService.listNotes(null, 20);
+    }
+
+    private Long randomId() {
+        return noteIds.get(ThreadLocalRandom.current().nextInt(noteIds.size()));
+    }
+}
@@ -0,0 +1,120 @@
+package com.markdown.benchmark;
+
+import com.markdown.MarkdownNotesApplication;
+import com.markdown.dto.NoteRequest;
+import com.markdown.service.NoteService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Read requests over HTTP against the full application, served on Tomcat's platform threads or, with the
+ * virtual-threads profile, on virtual threads. Three in four requests get a random note, the rest the first page
+ * of the note list. 64 clients by default (vary with -t). The virtual mode needs a Java 21 runtime.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+@Threads(64)
+@State(Scope.Benchmark)
+public class ThreadModeBenchmark {
+
+    private static final int SEEDED_NOTES = 200;
+
+    @Param({"platform", "virtual"})
+    public String threads;
+
+    private ConfigurableApplicationContext context;
+    private Path dataDirectory;
+    private HttpClient http;
+    private String baseUrl;
+    private List<Long> noteIds;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        boolean virtual = "virtual".equals(threads);
+        if (virtual && Runtime.version().feature() < 21) {
+            // Spring Boot would silently fall back to platform threads
+            throw new IllegalStateException("The virtual-thread mode needs a Java 21 runtime, not Java "
+                    + Runtime.version().feature());
+        }
+
+        // Every path the application writes to, so that a run never touches ./data. Passed as arguments, which
+        // take precedence over application.properties (builder properties are only defaults)
+        dataDirectory = Files.createTempDirectory("thread-mode-benchmark");
+        SpringApplicationBuilder application = new SpringApplicationBuilder(MarkdownNotesApplication.class)
+                .web(WebApplicationType.SERVLET);
+        if (virtual) {
+            application.profiles("virtual-threads");
+        }
+        context = application.run(
+                        "--server.port=0",
+                        "--spring.datasource.url=jdbc:h2:file:" + dataDirectory.resolve("notesdb").toAbsolutePath(),
+                        "--spring.jpa.show-sql=false",
+                        "--spring.h2.console.enabled=false",
+                        "--logging.level.root=WARN",
+                        "--logging.level.com.markdown=WARN",
+                        "--grammar.pool.size=1",
+                        "--search.index.path=" + dataDirectory.resolve("search-index"),
+                        "--grammar.lint.output-dir=" + dataDirectory.resolve("grammar-lint"));
+
+        NoteService noteService = context.getBean(NoteService.class);
+        String content = BenchmarkDocuments.generate("mixed", 4096);
+        noteIds = new ArrayList<>(SEEDED_NOTES);
+        for (int i = 0; i < SEEDED_NOTES; i++) {
+            noteIds.add(noteService.saveNote(new NoteRequest("Seeded note " + i, content)).getId());
+        }
+
+        baseUrl = "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+        http = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        context.close();
+        FileSystemUtils.deleteRecursively(dataDirectory);
+    }
+
+    @Benchmark
+    public int read() throws IOException, InterruptedException {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        String path = random.nextInt(4) == 0
+                ? "/api/notes?limit=20"
+                : "/api/notes/" + noteIds.get(random.nextInt(noteIds.size()));
+        HttpResponse<Void> response = http.send(HttpRequest.newBuilder(URI.create(baseUrl + path)).build(),
+                HttpResponse.BodyHandlers.discarding());
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException("GET " + path + " returned " + response.statusCode());
+        }
+        return response.statusCode();
+    }
+}
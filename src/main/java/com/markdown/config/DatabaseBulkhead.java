@@ -0,0 +1,65 @@
+package com.markdown.config;
+
+import com.markdown.exception.ServiceBusyException;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bounds how many threads run NoteService database work at once.
+ * With virtual threads there is no Tomcat thread limit in front of the connection pool any more; the
+ * bulkhead makes excess callers park cheaply here instead of piling up inside Hikari, and keeps the number
+ * of threads blocked in (carrier-pinning) H2 driver calls small. It is ordered before the transaction
+ * advice, so a permit is taken before a connection is.
+ */
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class DatabaseBulkhead {
+
+    private final Semaphore permits;
+    private final long acquireTimeoutMillis;
+    private final ThreadLocal<Boolean> holdsPermit = ThreadLocal.withInitial(() -> Boolean.FALSE);
+
+    public DatabaseBulkhead(@Value("${notes.db.max-concurrency:0}") int maxConcurrency,
+                            @Value("${spring.datasource.hikari.maximum-pool-size:10}") int connectionPoolSize,
+                            @Value("${notes.db.acquire-timeout-ms:30000}") long acquireTimeoutMillis) {
+        this.permits = new Semaphore(maxConcurrency > 0 ? maxConcurrency : connectionPoolSize, true);
+        this.acquireTimeoutMillis = acquireTimeoutMillis;
+    }
+
+    @Around("execution(public * com.markdown.service.NoteService.*(..))")
+    public Object limit(ProceedingJoinPoint joinPoint) throws Throwable {
+        // Nested calls on the same thread already hold a permit
+        if (holdsPermit.get()) {
+            return joinPoint.proceed();
+        }
+
+        boolean acquired;
+        try {
+            acquired = permits.tryAcquire(acquireTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ServiceBusyException(HttpStatus.SERVICE_UNAVAILABLE, "Interrupted while waiting for the database");
+        }
+        if (!acquired) {
+            throw new ServiceBusyException(HttpStatus.SERVICE_UNAVAILABLE, "Database is busy, please retry later");
+        }
+
+        holdsPermit.set(Boolean.TRUE);
+        try {
+            return joinPoint.proceed();
+        } finally {
+            holdsPermit.set(Boolean.FALSE);
+            permits.release();
+        }
+    }
+}
@@ -0,0 +1,250 @@
+package com.markdown.config;
+
+import com.markdown.entity.CompressedTextConverter;
+import com.markdown.entity.Note;
+import com.markdown.util.ContentHash;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Data migrations for existing databases that Hibernate's schema update cannot perform by itself.
+ * Runs right after the schema update, before the application serves requests.
+ */
+@Slf4j
+@Component
+@DependsOn("entityManagerFactory")
+@RequiredArgsConstructor
+public class DatabaseMigrations {
+
+    private static final int BATCH_SIZE = 500;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final CompressedTextConverter compressedTextConverter;
+
+    @PostConstruct
+    public void migrate() {
+        moveNoteContents();
+        encodeNoteContents();
+        dedupeNoteContents();
+        backfillContentHashes();
+        initializeNoteVersions();
+        compressNoteContents();
+        alignSequence("notes", "notes_seq");
+        alignSequence("note_contents", "note_contents_seq");
+    }
+
+    /**
+     * Note content and renders used to live in the notes table; move them to note_contents, reusing the note ids
+     */
+    private void moveNoteContents() {
+        if (!columnExists("NOTES", "CONTENT")) {
+            return;
+        }
+
+        // Staging column, encoded into content_data by encodeNoteContents()
+        jdbcTemplate.execute("ALTER TABLE note_contents ADD COLUMN IF NOT EXISTS content CLOB");
+        int moved = jdbcTemplate.update("""
+                INSERT INTO note_contents (id, content, rendered_html, renderer_version)
+                SELECT id, content, rendered_html, renderer_version FROM notes
+                WHERE content_id IS NULL AND id NOT IN (SELECT id FROM note_contents)""");
+        jdbcTemplate.update("UPDATE notes SET content_id = id WHERE content_id IS NULL");
+        jdbcTemplate.execute("ALTER TABLE notes DROP COLUMN content");
+        jdbcTemplate.execute("ALTER TABLE notes DROP COLUMN IF EXISTS rendered_html");
+        jdbcTemplate.execute("ALTER TABLE notes DROP COLUMN IF EXISTS renderer_version");
+        log.info("Moved the content of {} note(s) to note_contents", moved);
+    }
+
+    /**
+     * Note contents used to be stored as text; convert them to the binary content_data column
+     */
+    private void encodeNoteContents() {
+        if (!columnExists("NOTE_CONTENTS", "CONTENT")) {
+            return;
+        }
+
+        long encoded = 0;
+        while (true) {
+            List<Object[]> updates = jdbcTemplate.query(
+                    "SELECT id, content FROM note_contents WHERE content_data IS NULL ORDER BY id LIMIT ?",
+                    (rs, rowNum) -> new Object[]{
+                            compressedTextConverter.convertToDatabaseColumn(rs.getString(2)), rs.getLong(1)},
+                    BATCH_SIZE);
+            if (updates.isEmpty()) {
+                break;
+            }
+            jdbcTemplate.batchUpdate("UPDATE note_contents SET content_data = ? WHERE id = ?", updates);
+            encoded += updates.size();
+        }
+        jdbcTemplate.execute("ALTER TABLE note_contents DROP COLUMN content");
+        log.info("Converted the content of {} note(s) to binary storage", encoded);
+    }
+
+    /**
+     * With compression enabled, deflate large contents that were stored raw, e.g. before it was turned on
+     */
+    private void compressNoteContents() {
+        if (!compressedTextConverter.isEnabled()) {
+            return;
+        }
+
+        long compressed = 0;
+        long lastId = 0;
+        while (true) {
+            List<Object[]> rows = jdbcTemplate.query("""
+                            SELECT id, content_data FROM note_contents
+                            WHERE id > ? AND OCTET_LENGTH(content_data) > ? AND SUBSTRING(content_data, 1, 1) = X'00'
+                            ORDER BY id LIMIT ?""",
+                    (rs, rowNum) -> new Object[]{rs.getBytes(2), rs.getLong(1)},
+                    lastId, compressedTextConverter.getMinBytes(), BATCH_SIZE);
+            if (rows.isEmpty()) {
+                break;
+            }
+            lastId = (Long) rows.get(rows.size() - 1)[1];
+
+            List<Object[]> updates = new ArrayList<>();
+            for (Object[] row : rows) {
+                String content = compressedTextConverter.convertToEntityAttribute((byte[]) row[0]);
+                byte[] data = compressedTextConverter.convertToDatabaseColumn(content);
+                // Contents that do not shrink stay raw
+                if (CompressedTextConverter.isDeflated(data)) {
+                    updates.add(new Object[]{data, row[1]});
+                }
+            }
+            jdbcTemplate.batchUpdate("UPDATE note_contents SET content_data = ? WHERE id = ?", updates);
+            compressed += updates.size();
+        }
+        if (compressed > 0) {
+            log.info("Compressed the stored content of {} note(s)", compressed);
+        }
+    }
+
+    /**
+     * Note contents used to be stored once per note; hash them, merge identical ones and count their references
+     */
+    private void dedupeNoteContents() {
+        allowSharedNoteContents();
+
+        long hashed = 0;
+        long merged = 0;
+        while (true) {
+            List<Object[]> rows = jdbcTemplate.query(
+                    "SELECT id, content_data FROM note_contents WHERE content_hash IS NULL ORDER BY id LIMIT ?",
+                    (rs, rowNum) -> new Object[]{rs.getLong(1), rs.getBytes(2)},
+                    BATCH_SIZE);
+            if (rows.isEmpty()) {
+                break;
+            }
+
+            for (Object[] row : rows) {
+                Long id = (Long) row[0];
+                String hash = ContentHash.sha256(compressedTextConverter.convertToEntityAttribute((byte[]) row[1]));
+                List<Long> stored = jdbcTemplate.queryForList(
+                        "SELECT id FROM note_contents WHERE content_hash = ?", Long.class, hash);
+                if (stored.isEmpty()) {
+                    jdbcTemplate.update("UPDATE note_contents SET content_hash = ? WHERE id = ?", hash, id);
+                } else {
+                    jdbcTemplate.update("UPDATE notes SET content_id = ? WHERE content_id = ?", stored.get(0), id);
+                    jdbcTemplate.update("DELETE FROM note_contents WHERE id = ?", id);
+                    merged++;
+                }
+                hashed++;
+            }
+        }
+        if (hashed == 0) {
+            return;
+        }
+
+        jdbcTemplate.update(
+                "UPDATE note_contents c SET ref_count = (SELECT COUNT(*) FROM notes n WHERE n.content_id = c.id)");
+        int orphans = jdbcTemplate.update("DELETE FROM note_contents WHERE ref_count = 0");
+        log.info("Hashed {} stored note content(s), merged {} duplicate(s) and removed {} unused", hashed, merged, orphans);
+    }
+
+    /**
+     * Copy the content hash to notes saved before notes.content_hash existed
+     */
+    private void backfillContentHashes() {
+        int updated = jdbcTemplate.update("""
+                UPDATE notes n SET content_hash = (SELECT c.content_hash FROM note_contents c WHERE c.id = n.content_id)
+                WHERE n.content_hash IS NULL""");
+        if (updated > 0) {
+            log.info("Copied the content hash to {} note(s)", updated);
+        }
+    }
+
+    /**
+     * Notes saved before notes.version existed start at version 0
+     */
+    private void initializeNoteVersions() {
+        int updated = jdbcTemplate.update("UPDATE notes SET version = 0 WHERE version IS NULL");
+        if (updated > 0) {
+            log.info("Set the version of {} note(s)", updated);
+        }
+    }
+
+    /**
+     * Rows created with IDENTITY ids, or copied over with their note's id, predate the sequence;
+     * move it past the highest existing id
+     */
+    private void alignSequence(String table, String sequence) {
+        Long maxId = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM " + table, Long.class);
+        Long nextValue = jdbcTemplate.queryForObject(
+                "SELECT BASE_VALUE FROM INFORMATION_SCHEMA.SEQUENCES WHERE SEQUENCE_NAME = ?", Long.class,
+                sequence.toUpperCase(Locale.ROOT));
+        if (maxId == null || nextValue == null || maxId == 0) {
+            return;
+        }
+
+        // The pooled optimizer hands out ids up to ID_ALLOCATION_SIZE below the sequence value
+        long safeValue = maxId + Note.ID_ALLOCATION_SIZE + 1;
+        if (nextValue < safeValue) {
+            jdbcTemplate.execute("ALTER SEQUENCE " + sequence + " RESTART WITH " + safeValue);
+            log.info("Moved {} from {} to {} past existing {} ids", sequence, nextValue, safeValue, table);
+        }
+    }
+
+    /**
+     * notes.content_id was unique while each note had its own content. H2 hands the index of a dropped unique
+     * constraint over to the foreign key on the same column, so the foreign key is re-created with a plain index.
+     */
+    private void allowSharedNoteContents() {
+        List<String> uniqueIndexes = jdbcTemplate.queryForList("""
+                SELECT i.INDEX_NAME FROM INFORMATION_SCHEMA.INDEXES i
+                JOIN INFORMATION_SCHEMA.INDEX_COLUMNS c ON c.INDEX_NAME = i.INDEX_NAME AND c.TABLE_NAME = i.TABLE_NAME
+                WHERE i.TABLE_NAME = 'NOTES' AND i.INDEX_TYPE_NAME = 'UNIQUE INDEX' AND c.COLUMN_NAME = 'CONTENT_ID'""",
+                String.class);
+        if (uniqueIndexes.isEmpty()) {
+            return;
+        }
+
+        List<String> constraints = jdbcTemplate.queryForList("""
+                SELECT tc.CONSTRAINT_NAME FROM INFORMATION_SCHEMA.TABLE_CONSTRAINTS tc
+                JOIN INFORMATION_SCHEMA.KEY_COLUMN_USAGE k ON k.CONSTRAINT_NAME = tc.CONSTRAINT_NAME
+                WHERE tc.TABLE_NAME = 'NOTES' AND tc.CONSTRAINT_TYPE IN ('UNIQUE', 'FOREIGN KEY')
+                AND k.COLUMN_NAME = 'CONTENT_ID'""", String.class);
+        for (String constraint : constraints) {
+            jdbcTemplate.execute("ALTER TABLE notes DROP CONSTRAINT " + constraint);
+        }
+        for (String index : uniqueIndexes) {
+            jdbcTemplate.execute("DROP INDEX IF EXISTS " + index);
+        }
+        jdbcTemplate.execute("ALTER TABLE notes ADD CONSTRAINT fk_notes_content_id "
+                + "FOREIGN KEY (content_id) REFERENCES note_contents (id)");
+        log.info("Dropped the unique index on notes.content_id so that notes can share content");
+    }
+
+    private boolean columnExists(String table, String column) {
+        Integer count = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM INFORMATION_SCHEMA.COLUMNS WHERE TABLE_NAME = ? AND COLUMN_NAME = ?",
+                Integer.class, table, column);
+        return count != null && count > 0;
+    }
+}
@@ -0,0 +1,46 @@
+package com.markdown.config;
+
+import jakarta.servlet.MultipartConfigElement;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.web.servlet.MultipartProperties;
+import org.springframework.boot.web.servlet.MultipartConfigFactory;
+import org.springframework.boot.web.servlet.ServletRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.context.WebApplicationContext;
+import org.springframework.web.servlet.DispatcherServlet;
+
+/**
+ * Serves archive imports through their own DispatcherServlet, sharing the application context, because the
+ * servlet container applies multipart limits per servlet. Imports get notes.import.max-archive-size while
+ * every other endpoint keeps the small spring.servlet.multipart limits, so a plain upload is never spooled
+ * to disk up to the archive limit before it is rejected.
+ */
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class ImportServletConfig {
+
+    @Bean
+    public ServletRegistrationBean<DispatcherServlet> importDispatcherServlet(
+            WebApplicationContext applicationContext,
+            MultipartProperties multipartProperties,
+            @Value("${notes.import.max-archive-size:1GB}") DataSize maxArchiveSize) {
+        ServletRegistrationBean<DispatcherServlet> registration =
+                new ServletRegistrationBean<>(new DispatcherServlet(applicationContext), "/api/notes/import");
+        registration.setName("importDispatcherServlet");
+        registration.setLoadOnStartup(1);
+        registration.setMultipartConfig(multipartConfig(multipartProperties, maxArchiveSize));
+        return registration;
+    }
+
+    private static MultipartConfigElement multipartConfig(MultipartProperties properties, DataSize maxArchiveSize) {
+        MultipartConfigFactory factory = new MultipartConfigFactory();
+        factory.setLocation(properties.getLocation());
+        factory.setFileSizeThreshold(properties.getFileSizeThreshold());
+        factory.setMaxFileSize(maxArchiveSize);
+        factory.setMaxRequestSize(maxArchiveSize);
+        return factory.createMultipartConfig();
+    }
+}
@@ -0,0 +1,59 @@
+package com.markdown.controller;
+
+import com.markdown.dto.GrammarJobResponse;
+import com.markdown.service.GrammarJobService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+@RestController
+@RequestMapping("/api/grammar-jobs")
+@RequiredArgsConstructor
+@Tag(name = "Grammar Jobs", description = "Results of asynchronous grammar checks")
+public class GrammarJobController {
+
+    private final GrammarJobService grammarJobService;
+
+    @Operation(
+            summary = "Get a grammar check job",
+            description = "Returns the status of an asynchronous grammar check and its result once completed"
+    )
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Job found",
+                    content = @Content(schema = @Schema(implementation = GrammarJobResponse.class))),
+            @ApiResponse(responseCode = "404", description = "Job not found or expired")
+    })
+    @GetMapping("/{id}")
+    public ResponseEntity<GrammarJobResponse> getJob(
+            @Parameter(description = "ID of the job")
+            @PathVariable String id) {
+        return ResponseEntity.ok(grammarJobService.getJob(id));
+    }
+
+    @Operation(
+            summary = "Stream a grammar check job",
+            description = "Server-sent events: a 'status' event right away and a 'result' event when the check finishes"
+    )
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Event stream opened"),
+            @ApiResponse(responseCode = "404", description = "Job not found or expired")
+    })
+    @GetMapping(value = "/{id}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamJob(
+            @Parameter(description = "ID of the job")
+            @PathVariable String id) {
+        return grammarJobService.subscribe(id);
+    }
+}
@@ -0,0 +1,83 @@
+package com.markdown.controller;
+
+import com.markdown.dto.GrammarCheckMode;
+import com.markdown.dto.GrammarLintStatus;
+import com.markdown.service.GrammarLintService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/grammar-lint")
+@RequiredArgsConstructor
+@Tag(name = "Grammar Lint", description = "Grammar audit of every note")
+public class GrammarLintController {
+
+    private static final String NDJSON_MEDIA_TYPE = "application/x-ndjson";
+
+    private final GrammarLintService grammarLintService;
+
+    @Operation(
+            summary = "Start a grammar lint of every note",
+            description = "Checks every note in the background; an unfinished run in the same mode is resumed from its checkpoint"
+    )
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "202", description = "Lint started",
+                    content = @Content(schema = @Schema(implementation = GrammarLintStatus.class))),
+            @ApiResponse(responseCode = "400", description = "Invalid mode"),
+            @ApiResponse(responseCode = "409", description = "A lint is already running")
+    })
+    @PostMapping
+    public ResponseEntity<GrammarLintStatus> startLint(
+            @Parameter(description = "'plain' to check the raw text, 'markdown' to check only prose")
+            @RequestParam(defaultValue = "markdown") String mode,
+            @Parameter(description = "Start over instead of resuming an unfinished run")
+            @RequestParam(defaultValue = "false") boolean restart) {
+        GrammarLintStatus status = grammarLintService.start(GrammarCheckMode.fromParameter(mode), restart);
+        return new ResponseEntity<>(status, HttpStatus.ACCEPTED);
+    }
+
+    @Operation(
+            summary = "Get grammar lint progress",
+            description = "Returns the progress of the current or last run, with issue counts per rule"
+    )
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Progress retrieved",
+                    content = @Content(schema = @Schema(implementation = GrammarLintStatus.class))),
+            @ApiResponse(responseCode = "404", description = "No lint has been run yet")
+    })
+    @GetMapping
+    public ResponseEntity<GrammarLintStatus> getLintStatus() {
+        return ResponseEntity.ok(grammarLintService.getStatus());
+    }
+
+    @Operation(
+            summary = "Download grammar lint results",
+            description = "Newline-delimited JSON with the grammar check result of every note checked so far"
+    )
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Results streamed"),
+            @ApiResponse(responseCode = "404", description = "No lint has been run yet")
+    })
+    @GetMapping(value = "/results", produces = NDJSON_MEDIA_TYPE)
+    public ResponseEntity<Resource> getLintResults() {
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(NDJSON_MEDIA_TYPE))
+                .body(new FileSystemResource(grammarLintService.getResultsFile()));
+    }
+}
@@ -31,14 +31,31 @@ public class HomeController {
         Map<String, String> endpoints = new HashMap<>();
         endpoints.put("POST /api/notes", "Create a new note (send title and content)");
         endpoints.put("POST /api/notes/upload", "Upload a markdown file");
-        endpoints.put("GET /api/notes", "List all saved notes");
+        endpoints.put("POST /api/notes/import", "Import a .zip/.tar/.tar.gz archive of markdown files");
+        endpoints.put("GET /api/notes", "List saved notes page by page (cursor, limit)");
+        endpoints.put("GET /api/notes/search?q=", "Full-text search over notes");
+        endpoints.put("GET /api/notes/export", "Stream all notes as NDJSON (gzip=true to compress)");
         endpoints.put("GET /api/notes/{id}", "Get a specific note");
         endpoints.put("PUT /api/notes/{id}", "Update a note");
+        endpoints.put("PATCH /api/notes/{id}", "Apply text edits to a note against a version");
         endpoints.put("DELETE /api/notes/{id}", "Delete a note");
         endpoints.put("POST /api/notes/{id}/check-grammar", "Check grammar of a note");
+        endpoints.put("POST /api/notes/{id}/check-grammar?async=true", "Queue a grammar check of a note and return a job");
         endpoints.put("POST /api/notes/check-grammar", "Check grammar of provided text");
+        endpoints.put("GET /api/grammar-jobs/{id}", "Get the status and result of a grammar check job");
+        endpoints.put("GET /api/grammar-jobs/{id}/events", "Stream the result of a grammar check job (SSE)");
+        endpoints.put("POST /api/grammar-lint", "Start or resume a grammar lint of every note");
+        endpoints.put("GET /api/grammar-lint", "Get grammar lint progress and issue counts per rule");
+        endpoints.put("GET /api/grammar-lint/results", "Download grammar lint results as NDJSON");
         endpoints.put("GET /api/notes/{id}/render", "Get HTML rendered version of a note");
+        endpoints.put("GET /api/notes/{id}/outline", "Get the headings and section byte ranges of a note");
+        endpoints.put("GET /api/notes/{id}/sections/{anchor}/render", "Get HTML of one section of a note");
+        endpoints.put("POST /api/notes/render-batch", "Render many notes as newline-delimited JSON");
         endpoints.put("POST /api/notes/render", "Convert markdown text to HTML");
+        endpoints.put("GET /api/stats/grammar-pool", "Get grammar checker pool statistics");
+        endpoints.put("GET /api/stats/grammar-jobs", "Get grammar check job statistics");
+        endpoints.put("GET /api/stats/render-cache", "Get render cache statistics");
+        endpoints.put("GET /actuator/prometheus", "Prometheus metrics");
 
         response.put("endpoints", endpoints);
 
@@ -1,10 +1,22 @@
 package com.markdown.controller;
 
+import com.markdown.dto.GrammarCheckMode;
 import com.markdown.dto.GrammarCheckResponse;
+import com.markdown.dto.GrammarJobResponse;
+import com.markdown.dto.ImportReport;
+import com.markdown.dto.NoteOutline;
+import com.markdown.dto.NotePageResponse;
+import com.markdown.dto.NotePatchRequest;
 import com.markdown.dto.NoteRequest;
 import com.markdown.dto.NoteResponse;
+import com.markdown.dto.NoteSearchResponse;
+import com.markdown.dto.NoteVersion;
+import com.markdown.dto.RenderBatchRequest;
+import com.markdown.service.GrammarJobService;
 import com.markdown.service.GrammarService;
 import com.markdown.service.MarkdownService;
+import com.markdown.service.NoteImportService;
+import com.markdown.service.NoteSearchService;
 import com.markdown.service.NoteService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -14,16 +26,27 @@ import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.BufferedWriter;
 import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
+import java.util.zip.GZIPOutputStream;
 
 @RestController
 @RequestMapping("/api/notes")
@@ -31,9 +54,68 @@ import java.util.Map;
 @Tag(name = "Notes", description = "API endpoints for managing markdown notes")
 public class NoteController {
 
+    private static final String NDJSON_MEDIA_TYPE = "application/x-ndjson";
+    private static final String GZIP_MEDIA_TYPE = "application/gzip";
+    private static final int GZIP_BUFFER_SIZE = 64 * 1024;
+    private static final int MAX_SEARCH_PAGE_SIZE = 100;
+    private static final int RENDER_BUFFER_SIZE = 16 * 1024;
+
+    // The rendered note is streamed between these two halves of the page
+    private static final String PAGE_PREFIX = """
+            <!DOCTYPE html>
+            <html lang="en">
+            <head>
+                <meta charset="UTF-8">
+                <meta name="viewport" content="width=device-width, initial-scale=1.0">
+                <title>Rendered Note</title>
+                <style>
+                    body {
+                        font-family: -apple-system, BlinkMacSystemFont, 'Segoe UI', Roboto, Oxygen, Ubuntu, Cantarell, sans-serif;
+                        line-height: 1.6;
+                        max-width: 800px;
+                        margin: 40px auto;
+                        padding: 0 20px;
+                        color: #333;
+                    }
+                    code {
+                        background-color: #f4f4f4;
+                        padding: 2px 6px;
+                        border-radius: 3px;
+                        font-family: 'Courier New', monospace;
+                    }
+                    pre {
+                        background-color: #f4f4f4;
+                        padding: 15px;
+                        border-radius: 5px;
+                        overflow-x: auto;
+                    }
+                    blockquote {
+                        border-left: 4px solid #ddd;
+                        margin: 0;
+                        padding-left: 20px;
+                        color: #666;
+                    }
+                    img {
+                        max-width: 100%;
+                        height: auto;
+                    }
+                </style>
+            </head>
+            <body>
+                \
+            """;
+    private static final String PAGE_SUFFIX = """
+
+            </body>
+            </html>
+            """;
+
     private final NoteService noteService;
+    private final NoteImportService noteImportService;
+    private final NoteSearchService noteSearchService;
     private final MarkdownService markdownService;
     private final GrammarService grammarService;
+    private final GrammarJobService grammarJobService;
 
     @Operation(
             summary = "Create a new note",
@@ -69,16 +151,92 @@ public class NoteController {
     }
 
     @Operation(
-            summary = "Get all notes",
-            description = "Retrieves a list of all saved notes, sorted by creation date (newest first)"
+            summary = "Import a markdown archive",
+            description = "Imports every .md file of a .zip, .tar, .tar.gz or .tgz archive as a note. " +
+                    "Entries are streamed and saved in batches; per-entry failures are reported without aborting the import."
+    )
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Archive processed",
+                    content = @Content(schema = @Schema(implementation = ImportReport.class))),
+            @ApiResponse(responseCode = "400", description = "Unsupported archive format or empty file"),
+            @ApiResponse(responseCode = "413", description = "File size exceeds maximum allowed size (10MB)")
+    })
+    @PostMapping(value = "/import", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<ImportReport> importArchive(
+            @Parameter(description = "Archive of markdown files (.zip, .tar, .tar.gz or .tgz)")
+            @RequestParam("file") MultipartFile file) throws IOException {
+        ImportReport report = noteImportService.importArchive(file);
+        return ResponseEntity.ok(report);
+    }
+
+    @Operation(
+            summary = "List notes",
+            description = "Retrieves one page of note summaries (without content), sorted by creation date (newest first). " +
+                    "Pass the returned nextCursor to fetch the following page."
     )
     @ApiResponses(value = {
-            @ApiResponse(responseCode = "200", description = "Notes retrieved successfully")
+            @ApiResponse(responseCode = "200", description = "Notes retrieved successfully",
+                    content = @Content(schema = @Schema(implementation = NotePageResponse.class))),
+            @ApiResponse(responseCode = "400", description = "Invalid cursor")
     })
     @GetMapping
-    public ResponseEntity<List<NoteResponse>> getAllNotes() {
-        List<NoteResponse> notes = noteService.getAllNotes();
-        return ResponseEntity.ok(notes);
+    public ResponseEntity<NotePageResponse> getAllNotes(
+            @Parameter(description = "Cursor returned by the previous page; omit for the first page")
+            @RequestParam(required = false) String cursor,
+            @Parameter(description = "Maximum number of notes per page")
+            @RequestParam(required = false) Integer limit) {
+        NotePageResponse page = noteService.listNotes(cursor, limit);
+        return ResponseEntity.ok(page);
+    }
+
+    @Operation(
+            summary = "Search notes",
+            description = "Full-text search over note titles and content (markdown syntax stripped). " +
+                    "Supports Lucene query syntax; results are ranked and include a highlighted snippet."
+    )
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Search completed",
+                    content = @Content(schema = @Schema(implementation = NoteSearchResponse.class))),
+            @ApiResponse(responseCode = "400", description = "Empty or invalid query")
+    })
+    @GetMapping("/search")
+    public ResponseEntity<NoteSearchResponse> searchNotes(
+            @Parameter(description = "Search query")
+            @RequestParam("q") String query,
+            @Parameter(description = "Zero-based page number")
+            @RequestParam(defaultValue = "0") int page,
+            @Parameter(description = "Number of results per page (max 100)")
+            @RequestParam(defaultValue = "10") int size) {
+        NoteSearchResponse response = noteSearchService.search(query, page, Math.min(size, MAX_SEARCH_PAGE_SIZE));
+        return ResponseEntity.ok(response);
+    }
+
+    @Operation(
+            summary = "Export all notes",
+            description = "Streams every note, including its content, as newline-delimited JSON (optionally gzip-compressed)"
+    )
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Export streamed successfully")
+    })
+    @GetMapping(value = "/export", produces = {NDJSON_MEDIA_TYPE, GZIP_MEDIA_TYPE})
+    public ResponseEntity<StreamingResponseBody> exportNotes(
+            @Parameter(description = "Compress the export with gzip")
+            @RequestParam(defaultValue = "false") boolean gzip) {
+        StreamingResponseBody body = outputStream -> {
+            if (gzip) {
+                GZIPOutputStream gzipOutputStream = new GZIPOutputStream(outputStream, GZIP_BUFFER_SIZE);
+                noteService.exportNotes(gzipOutputStream);
+                gzipOutputStream.finish();
+            } else {
+                noteService.exportNotes(outputStream);
+            }
+        };
+
+        String fileName = gzip ? "notes.ndjson.gz" : "notes.ndjson";
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(gzip ? GZIP_MEDIA_TYPE : NDJSON_MEDIA_TYPE))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + fileName + "\"")
+                .body(body);
     }
 
     @Operation(
@@ -88,12 +246,17 @@ public class NoteController {
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Note found",
                     content = @Content(schema = @Schema(implementation = NoteResponse.class))),
+            @ApiResponse(responseCode = "304", description = "Note not modified since the client's copy"),
             @ApiResponse(responseCode = "404", description = "Note not found")
     })
     @GetMapping("/{id}")
     public ResponseEntity<NoteResponse> getNoteById(
             @Parameter(description = "ID of the note to retrieve")
-            @PathVariable Long id) {
+            @PathVariable Long id,
+            WebRequest request) {
+        if (isNotModified(request, noteService.getNoteVersion(id), "note")) {
+            return null;
+        }
         NoteResponse response = noteService.getNoteById(id);
         return ResponseEntity.ok(response);
     }
@@ -117,6 +280,28 @@ public class NoteController {
         return ResponseEntity.ok(response);
     }
 
+    @Operation(
+            summary = "Edit a note",
+            description = "Applies text edits (replace `delete` characters at `offset` with `insert`, in order) and "
+                    + "optionally a new title, made against `baseVersion` of the note. Send only what changed "
+                    + "instead of the whole note; take the next baseVersion from the response."
+    )
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Note updated successfully",
+                    content = @Content(schema = @Schema(implementation = NoteResponse.class))),
+            @ApiResponse(responseCode = "404", description = "Note not found"),
+            @ApiResponse(responseCode = "400", description = "Missing baseVersion or an edit outside the note"),
+            @ApiResponse(responseCode = "409", description = "The note changed since baseVersion")
+    })
+    @PatchMapping("/{id}")
+    public ResponseEntity<NoteResponse> patchNote(
+            @Parameter(description = "ID of the note to edit")
+            @PathVariable Long id,
+            @RequestBody NotePatchRequest request) {
+        NoteResponse response = noteService.patchNote(id, request);
+        return ResponseEntity.ok(response);
+    }
+
     @Operation(
             summary = "Delete a note",
             description = "Permanently deletes a note from the database"
@@ -137,29 +322,61 @@ public class NoteController {
 
     @Operation(
             summary = "Check grammar of a note",
-            description = "Checks the grammar of a saved note using LanguageTool and returns suggestions"
+            description = "Checks the grammar of a saved note using LanguageTool and returns suggestions. " +
+                    "The raw content is checked by default; with mode=markdown only the prose is checked, skipping " +
+                    "code, HTML, tables and link targets"
     )
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Grammar check completed",
                     content = @Content(schema = @Schema(implementation = GrammarCheckResponse.class))),
+            @ApiResponse(responseCode = "400", description = "Invalid mode"),
             @ApiResponse(responseCode = "404", description = "Note not found")
     })
     @PostMapping("/{id}/check-grammar")
     public ResponseEntity<GrammarCheckResponse> checkGrammar(
             @Parameter(description = "ID of the note to check")
-            @PathVariable Long id) {
+            @PathVariable Long id,
+            @Parameter(description = "'plain' to check the raw content, 'markdown' to check only prose")
+            @RequestParam(defaultValue = "plain") String mode) {
+        GrammarCheckMode checkMode = GrammarCheckMode.fromParameter(mode);
         String content = noteService.getNoteContent(id);
-        GrammarCheckResponse response = grammarService.checkGrammar(content);
+        GrammarCheckResponse response = grammarService.checkGrammar(content, checkMode);
         return ResponseEntity.ok(response);
     }
 
+    @Operation(
+            summary = "Check grammar of a note asynchronously",
+            description = "Queues a grammar check of a saved note and returns a job right away; poll " +
+                    "/api/grammar-jobs/{jobId} or subscribe to /api/grammar-jobs/{jobId}/events for the result. " +
+                    "An identical check that is still queued or running is reused"
+    )
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "202", description = "Grammar check queued",
+                    content = @Content(schema = @Schema(implementation = GrammarJobResponse.class))),
+            @ApiResponse(responseCode = "400", description = "Invalid mode"),
+            @ApiResponse(responseCode = "404", description = "Note not found"),
+            @ApiResponse(responseCode = "429", description = "Grammar check queue is full")
+    })
+    @PostMapping(value = "/{id}/check-grammar", params = "async=true")
+    public ResponseEntity<GrammarJobResponse> checkGrammarAsync(
+            @Parameter(description = "ID of the note to check")
+            @PathVariable Long id,
+            @Parameter(description = "'plain' to check the raw content, 'markdown' to check only prose")
+            @RequestParam(defaultValue = "plain") String mode) {
+        GrammarJobResponse job = grammarJobService.submit(id, GrammarCheckMode.fromParameter(mode));
+        return ResponseEntity.status(HttpStatus.ACCEPTED)
+                .location(URI.create("/api/grammar-jobs/" + job.getId()))
+                .body(job);
+    }
+
     @Operation(
             summary = "Check grammar of text",
             description = "Checks the grammar of any provided text without saving it as a note"
     )
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Grammar check completed",
-                    content = @Content(schema = @Schema(implementation = GrammarCheckResponse.class)))
+                    content = @Content(schema = @Schema(implementation = GrammarCheckResponse.class))),
+            @ApiResponse(responseCode = "400", description = "Invalid mode")
     })
     @PostMapping("/check-grammar")
     public ResponseEntity<GrammarCheckResponse> checkGrammarText(
@@ -167,9 +384,11 @@ public class NoteController {
                     description = "JSON object with 'text' field containing the text to check",
                     content = @Content(schema = @Schema(example = "{\"text\": \"This are a test sentence.\"}"))
             )
-            @RequestBody Map<String, String> request) {
+            @RequestBody Map<String, String> request,
+            @Parameter(description = "'plain' to check the raw text, 'markdown' to check only prose")
+            @RequestParam(defaultValue = "plain") String mode) {
         String text = request.get("text");
-        GrammarCheckResponse response = grammarService.checkGrammar(text);
+        GrammarCheckResponse response = grammarService.checkGrammar(text, GrammarCheckMode.fromParameter(mode));
         return ResponseEntity.ok(response);
     }
 
@@ -179,63 +398,84 @@ public class NoteController {
     )
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "HTML rendered successfully"),
+            @ApiResponse(responseCode = "304", description = "Note not modified since the client's copy"),
             @ApiResponse(responseCode = "404", description = "Note not found")
     })
     @GetMapping(value = "/{id}/render", produces = MediaType.TEXT_HTML_VALUE)
-    public ResponseEntity<String> renderNoteAsHtml(
+    public ResponseEntity<StreamingResponseBody> renderNoteAsHtml(
             @Parameter(description = "ID of the note to render")
-            @PathVariable Long id) {
-        String content = noteService.getNoteContent(id);
-        String html = markdownService.convertToHtml(content);
+            @PathVariable Long id,
+            WebRequest request) {
+        if (isNotModified(request, noteService.getNoteVersion(id), "render-v" + MarkdownService.RENDERER_VERSION)) {
+            return null;
+        }
+        return htmlPage(noteService.getRenderedHtml(id));
+    }
+
+    @Operation(
+            summary = "Get the outline of a note",
+            description = "Lists the headings of a note with their anchors and the byte range of each section"
+    )
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Outline retrieved successfully",
+                    content = @Content(schema = @Schema(implementation = NoteOutline.class))),
+            @ApiResponse(responseCode = "304", description = "Note not modified since the client's copy"),
+            @ApiResponse(responseCode = "404", description = "Note not found")
+    })
+    @GetMapping("/{id}/outline")
+    public ResponseEntity<NoteOutline> getNoteOutline(
+            @Parameter(description = "ID of the note")
+            @PathVariable Long id,
+            WebRequest request) {
+        if (isNotModified(request, noteService.getNoteVersion(id), "outline")) {
+            return null;
+        }
+        return ResponseEntity.ok(noteService.getOutline(id));
+    }
 
-        // Wrap in basic HTML structure
-        String fullHtml = """
-                <!DOCTYPE html>
-                <html lang="en">
-                <head>
-                    <meta charset="UTF-8">
-                    <meta name="viewport" content="width=device-width, initial-scale=1.0">
-                    <title>Rendered Note</title>
-                    <style>
-                        body {
-                            font-family: -apple-system, BlinkMacSystemFont, 'Segoe UI', Roboto, Oxygen, Ubuntu, Cantarell, sans-serif;
-                            line-height: 1.6;
-                            max-width: 800px;
-                            margin: 40px auto;
-                            padding: 0 20px;
-                            color: #333;
-                        }
-                        code {
-                            background-color: #f4f4f4;
-                            padding: 2px 6px;
-                            border-radius: 3px;
-                            font-family: 'Courier New', monospace;
-                        }
-                        pre {
-                            background-color: #f4f4f4;
-                            padding: 15px;
-                            border-radius: 5px;
-                            overflow-x: auto;
-                        }
-                        blockquote {
-                            border-left: 4px solid #ddd;
-                            margin: 0;
-                            padding-left: 20px;
-                            color: #666;
-                        }
-                        img {
-                            max-width: 100%;
-                            height: auto;
-                        }
-                    </style>
-                </head>
-                <body>
-                    %s
-                </body>
-                </html>
-                """.formatted(html);
+    @Operation(
+            summary = "Render one section of a note as HTML",
+            description = "Renders only the section under the heading with the given anchor (see the outline), " +
+                    "including its subsections, and returns a complete web page"
+    )
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "HTML rendered successfully"),
+            @ApiResponse(responseCode = "304", description = "Note not modified since the client's copy"),
+            @ApiResponse(responseCode = "404", description = "Note or section not found")
+    })
+    @GetMapping(value = "/{id}/sections/{anchor}/render", produces = MediaType.TEXT_HTML_VALUE)
+    public ResponseEntity<StreamingResponseBody> renderNoteSectionAsHtml(
+            @Parameter(description = "ID of the note")
+            @PathVariable Long id,
+            @Parameter(description = "Anchor of the section heading")
+            @PathVariable String anchor,
+            WebRequest request) {
+        if (isNotModified(request, noteService.getNoteVersion(id), "section-v" + MarkdownService.RENDERER_VERSION)) {
+            return null;
+        }
+        return htmlPage(noteService.getSectionHtml(id, anchor));
+    }
 
-        return ResponseEntity.ok(fullHtml);
+    @Operation(
+            summary = "Render many notes as HTML",
+            description = "Renders the given notes, or every note updated since updatedSince when no ids are given, " +
+                    "and streams one newline-delimited JSON object per note as renders complete. " +
+                    "Notes that do not exist are reported with an error instead of html."
+    )
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Renders streamed successfully")
+    })
+    @PostMapping(value = "/render-batch", produces = NDJSON_MEDIA_TYPE)
+    public ResponseEntity<StreamingResponseBody> renderNotesBatch(
+            @io.swagger.v3.oas.annotations.parameters.RequestBody(
+                    description = "Note ids to render, or a filter",
+                    content = @Content(schema = @Schema(example = "{\"ids\": [1, 2, 3]}"))
+            )
+            @RequestBody RenderBatchRequest request) {
+        StreamingResponseBody body = outputStream -> noteService.renderBatch(request, outputStream);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(NDJSON_MEDIA_TYPE))
+                .body(body);
     }
 
     @Operation(
@@ -260,5 +500,32 @@ public class NoteController {
 
         return ResponseEntity.ok(response);
     }
-}
 
+    /**
+     * Stream rendered HTML as a complete UTF-8 page
+     */
+    private static ResponseEntity<StreamingResponseBody> htmlPage(NoteService.HtmlSource html) {
+        StreamingResponseBody body = outputStream -> {
+            Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8), RENDER_BUFFER_SIZE);
+            writer.write(PAGE_PREFIX);
+            html.writeTo(writer);
+            writer.write(PAGE_SUFFIX);
+            writer.flush();
+        };
+        return ResponseEntity.ok()
+                .contentType(new MediaType(MediaType.TEXT_HTML, StandardCharsets.UTF_8))
+                .body(body);
+    }
+
+    /**
+     * Check the request's If-None-Match / If-Modified-Since against a note's modification time, setting the
+     * ETag and Last-Modified headers. When this returns true the response is already a 304 and the handler
+     * returns without loading the note. The variant keeps ETags of different representations apart.
+     */
+    private static boolean isNotModified(WebRequest request, NoteVersion version, String variant) {
+        LocalDateTime modified = version.getUpdatedAt() != null ? version.getUpdatedAt() : version.getCreatedAt();
+        Instant instant = modified.atZone(ZoneId.systemDefault()).toInstant();
+        String etag = "%s-%d-%d%09d".formatted(variant, version.getId(), instant.getEpochSecond(), instant.getNano());
+        return request.checkNotModified(etag, instant.toEpochMilli());
+    }
+}
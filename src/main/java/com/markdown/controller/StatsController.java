@@ -0,0 +1,62 @@
+package com.markdown.controller;
+
+import com.markdown.dto.GrammarJobStats;
+import com.markdown.dto.GrammarPoolStats;
+import com.markdown.dto.RenderCacheStats;
+import com.markdown.service.GrammarJobService;
+import com.markdown.service.LanguageToolPool;
+import com.markdown.service.MarkdownService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/stats")
+@RequiredArgsConstructor
+@Tag(name = "Stats", description = "Runtime statistics of the rendering and grammar checking engines")
+public class StatsController {
+
+    private final LanguageToolPool languageToolPool;
+    private final GrammarJobService grammarJobService;
+    private final MarkdownService markdownService;
+
+    @Operation(
+            summary = "Get grammar checker pool statistics",
+            description = "Returns the size, utilization and wait/timeout counters of the LanguageTool pool"
+    )
+    @ApiResponse(responseCode = "200", description = "Statistics retrieved successfully",
+            content = @Content(schema = @Schema(implementation = GrammarPoolStats.class)))
+    @GetMapping("/grammar-pool")
+    public ResponseEntity<GrammarPoolStats> getGrammarPoolStats() {
+        return ResponseEntity.ok(languageToolPool.getStats());
+    }
+
+    @Operation(
+            summary = "Get grammar check job statistics",
+            description = "Returns the worker count, queue depth and submission counters of asynchronous grammar checks"
+    )
+    @ApiResponse(responseCode = "200", description = "Statistics retrieved successfully",
+            content = @Content(schema = @Schema(implementation = GrammarJobStats.class)))
+    @GetMapping("/grammar-jobs")
+    public ResponseEntity<GrammarJobStats> getGrammarJobStats() {
+        return ResponseEntity.ok(grammarJobService.getStats());
+    }
+
+    @Operation(
+            summary = "Get render cache statistics",
+            description = "Returns the size and hit/miss/eviction counters of the rendered HTML cache"
+    )
+    @ApiResponse(responseCode = "200", description = "Statistics retrieved successfully",
+            content = @Content(schema = @Schema(implementation = RenderCacheStats.class)))
+    @GetMapping("/render-cache")
+    public ResponseEntity<RenderCacheStats> getRenderCacheStats() {
+        return ResponseEntity.ok(markdownService.getCacheStats());
+    }
+}
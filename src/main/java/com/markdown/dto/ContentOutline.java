@@ -0,0 +1,14 @@
+package com.markdown.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ContentOutline {
+    private Long contentId;
+    // Stored outline as JSON, null until extracted
+    private String outline;
+}
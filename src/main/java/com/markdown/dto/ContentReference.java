@@ -0,0 +1,16 @@
+package com.markdown.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Id of the stored note content with a given hash
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ContentReference {
+    private Long id;
+    private String contentHash;
+}
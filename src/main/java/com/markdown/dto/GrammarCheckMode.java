@@ -0,0 +1,28 @@
+package com.markdown.dto;
+
+import java.util.Locale;
+
+/**
+ * How text is handed to the grammar checker
+ */
+public enum GrammarCheckMode {
+
+    /** Check the raw text, split into paragraphs on blank lines */
+    PLAIN,
+
+    /** Check only the prose of markdown, skipping code, HTML, tables and link targets */
+    MARKDOWN;
+
+    /**
+     * Parse a request parameter value, ignoring case
+     */
+    public static GrammarCheckMode fromParameter(String value) {
+        for (GrammarCheckMode mode : values()) {
+            if (mode.name().equalsIgnoreCase(value)) {
+                return mode;
+            }
+        }
+        throw new IllegalArgumentException("Invalid grammar check mode: " + value
+                + " (expected " + PLAIN.name().toLowerCase(Locale.ROOT) + " or " + MARKDOWN.name().toLowerCase(Locale.ROOT) + ")");
+    }
+}
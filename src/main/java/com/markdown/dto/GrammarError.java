@@ -8,6 +8,7 @@ import lombok.NoArgsConstructor;
 @NoArgsConstructor
 @AllArgsConstructor
 public class GrammarError {
+    private String ruleId;
     private String message;
     private int line;
     private int column;
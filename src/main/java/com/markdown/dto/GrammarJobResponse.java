@@ -0,0 +1,21 @@
+package com.markdown.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class GrammarJobResponse {
+    private String id;
+    private Long noteId;
+    private GrammarCheckMode mode;
+    private GrammarJobStatus status;
+    private LocalDateTime submittedAt;
+    private LocalDateTime completedAt;
+    private GrammarCheckResponse result;
+    private String error;
+}
@@ -0,0 +1,19 @@
+package com.markdown.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class GrammarJobStats {
+    private int workers;
+    private int running;
+    private int queued;
+    private int remainingQueueCapacity;
+    private int retainedJobs;
+    private long submittedCount;
+    private long deduplicatedCount;
+    private long rejectedCount;
+}
@@ -0,0 +1,11 @@
+package com.markdown.dto;
+
+/**
+ * Lifecycle of an asynchronous grammar check
+ */
+public enum GrammarJobStatus {
+    QUEUED,
+    RUNNING,
+    COMPLETED,
+    FAILED
+}
@@ -0,0 +1,18 @@
+package com.markdown.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class GrammarLintResult {
+    private Long noteId;
+    private String title;
+    private GrammarCheckResponse result;
+    // Set instead of result when the note could not be checked
+    private String error;
+}
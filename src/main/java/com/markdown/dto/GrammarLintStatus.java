@@ -0,0 +1,32 @@
+package com.markdown.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+/**
+ * Progress of a corpus-wide grammar lint, also saved as its checkpoint
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class GrammarLintStatus {
+    private GrammarJobStatus status;
+    private GrammarCheckMode mode;
+    private LocalDateTime startedAt;
+    private LocalDateTime completedAt;
+    private int workers;
+    // Every note up to this id has been checked
+    private long lastNoteId;
+    private long notesChecked;
+    private long notesFailed;
+    private long totalErrors;
+    // Length of the results file at the checkpoint; anything written after it is discarded on resume
+    private long resultBytes;
+    // Issues per LanguageTool rule, most frequent first
+    private Map<String, Long> ruleCounts;
+    private String error;
+}
@@ -0,0 +1,19 @@
+package com.markdown.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class GrammarPoolStats {
+    private int poolSize;
+    private int available;
+    private int inUse;
+    private int waiting;
+    private long borrowCount;
+    private long timeoutCount;
+    private long rejectedCount;
+    private double averageWaitMillis;
+}
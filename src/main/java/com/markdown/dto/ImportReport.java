@@ -0,0 +1,22 @@
+package com.markdown.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ImportReport {
+    private String archive;
+    private int entries;
+    private int imported;
+    private int skipped;
+    private int failed;
+    private int batches;
+    private long durationMillis;
+    private List<ImportFailure> failures = new ArrayList<>();
+}
@@ -0,0 +1,17 @@
+package com.markdown.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class NoteHeading {
+    private int level;
+    private String text;
+    private String anchor;
+    // UTF-8 byte range of the heading's section in the markdown, up to the next heading of the same or a higher level
+    private long start;
+    private long end;
+}
@@ -0,0 +1,16 @@
+package com.markdown.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class NotePageResponse {
+    private List<NoteSummary> notes;
+    private int limit;
+    private String nextCursor;
+}
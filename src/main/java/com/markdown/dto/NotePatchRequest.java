@@ -0,0 +1,19 @@
+package com.markdown.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class NotePatchRequest {
+    // Version of the note the edits were made against; a note changed since then is rejected with 409
+    private Long baseVersion;
+    // New title, or null to keep it
+    private String title;
+    // Applied in order, each against the text the previous ones produced
+    private List<TextEdit> edits;
+}
@@ -16,5 +16,6 @@ public class NoteResponse {
     private String fileName;
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
+    private Long version;
 }
 
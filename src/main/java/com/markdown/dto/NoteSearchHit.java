@@ -0,0 +1,15 @@
+package com.markdown.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class NoteSearchHit {
+    private Long id;
+    private String title;
+    private float score;
+    private String snippet;
+}
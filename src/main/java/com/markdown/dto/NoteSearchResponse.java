@@ -0,0 +1,18 @@
+package com.markdown.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class NoteSearchResponse {
+    private String query;
+    private long totalHits;
+    private int page;
+    private int size;
+    private List<NoteSearchHit> hits;
+}
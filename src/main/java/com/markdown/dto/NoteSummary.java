@@ -0,0 +1,18 @@
+package com.markdown.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class NoteSummary {
+    private Long id;
+    private String title;
+    private String fileName;
+    private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,19 @@
+package com.markdown.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Identity and modification time of a note, enough to validate cached copies without loading the content
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class NoteVersion {
+    private Long id;
+    private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
+}
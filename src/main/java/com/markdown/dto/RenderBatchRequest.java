@@ -0,0 +1,17 @@
+package com.markdown.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RenderBatchRequest {
+    // Notes to render; when absent, every note (updated since updatedSince, if set) is rendered
+    private List<Long> ids;
+    private LocalDateTime updatedSince;
+}
@@ -0,0 +1,17 @@
+package com.markdown.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RenderCacheStats {
+    private long entries;
+    private long weightedBytes;
+    private long hitCount;
+    private long missCount;
+    private double hitRate;
+    private long evictionCount;
+}
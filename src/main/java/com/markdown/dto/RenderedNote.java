@@ -0,0 +1,18 @@
+package com.markdown.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class RenderedNote {
+    private Long id;
+    private String title;
+    private String html;
+    // Set instead of title and html when the note could not be rendered
+    private String error;
+}
@@ -0,0 +1,18 @@
+package com.markdown.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Replace {@code delete} characters at {@code offset} with {@code insert}. Offsets and lengths count UTF-16 code
+ * units, as string indices do in Java and JavaScript.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TextEdit {
+    private int offset;
+    private int delete;
+    private String insert;
+}
@@ -0,0 +1,168 @@
+package com.markdown.entity;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Stores text as UTF-8, deflated when compression is enabled and the text is large enough to benefit.
+ * The first byte records the format, so rows written with either setting stay readable after it changes:
+ * {@code 0} is followed by the raw UTF-8 bytes, {@code 1} by the UTF-8 length (4 bytes) and the deflated bytes.
+ */
+@Component
+@Converter
+public class CompressedTextConverter implements AttributeConverter<String, byte[]> {
+
+    static final byte RAW = 0;
+    static final byte DEFLATED = 1;
+
+    private static final int DEFLATED_HEADER_SIZE = 5;
+
+    private final boolean enabled;
+    private final int minBytes;
+    private final int level;
+
+    public CompressedTextConverter(@Value("${notes.storage.compression.enabled:false}") boolean enabled,
+                                   @Value("${notes.storage.compression.min-bytes:1024}") int minBytes,
+                                   @Value("${notes.storage.compression.level:1}") int level) {
+        this.enabled = enabled;
+        this.minBytes = minBytes;
+        this.level = level;
+    }
+
+    @Override
+    public byte[] convertToDatabaseColumn(String text) {
+        if (text == null) {
+            return null;
+        }
+
+        byte[] utf8 = text.getBytes(StandardCharsets.UTF_8);
+        if (enabled && utf8.length >= minBytes) {
+            byte[] deflated = deflate(utf8, level);
+            // Keep incompressible text raw, reading it back is cheaper
+            if (deflated != null) {
+                return deflated;
+            }
+        }
+
+        byte[] raw = new byte[utf8.length + 1];
+        raw[0] = RAW;
+        System.arraycopy(utf8, 0, raw, 1, utf8.length);
+        return raw;
+    }
+
+    @Override
+    public String convertToEntityAttribute(byte[] data) {
+        if (data == null) {
+            return null;
+        }
+        if (data.length == 0) {
+            return "";
+        }
+
+        return switch (data[0]) {
+            case RAW -> new String(data, 1, data.length - 1, StandardCharsets.UTF_8);
+            case DEFLATED -> new String(inflate(data), StandardCharsets.UTF_8);
+            default -> throw new IllegalStateException("Unknown stored text format: " + data[0]);
+        };
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public int getMinBytes() {
+        return minBytes;
+    }
+
+    /**
+     * Whether stored data holds deflated text
+     */
+    public static boolean isDeflated(byte[] data) {
+        return data != null && data.length > 0 && data[0] == DEFLATED;
+    }
+
+    /**
+     * Open stored data as a stream of its UTF-8 text, inflating deflated data on the fly,
+     * so that part of the text can be read without decoding all of it
+     */
+    public static InputStream openUtf8(InputStream data) throws IOException {
+        int format = data.read();
+        switch (format) {
+            case -1:
+                return InputStream.nullInputStream();
+            case RAW:
+                return data;
+            case DEFLATED:
+                data.skipNBytes(DEFLATED_HEADER_SIZE - 1);
+                Inflater inflater = new Inflater(true);
+                return new InflaterInputStream(data, inflater) {
+                    @Override
+                    public void close() throws IOException {
+                        try {
+                            super.close();
+                        } finally {
+                            inflater.end();
+                        }
+                    }
+                };
+            default:
+                throw new IllegalStateException("Unknown stored text format: " + format);
+        }
+    }
+
+    // Returns null when deflating does not make the data smaller
+    private static byte[] deflate(byte[] utf8, int level) {
+        Deflater deflater = new Deflater(level, true);
+        try {
+            deflater.setInput(utf8);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(utf8.length / 4 + 64);
+            out.write(DEFLATED);
+            out.writeBytes(ByteBuffer.allocate(4).putInt(utf8.length).array());
+            byte[] buffer = new byte[16 * 1024];
+            while (!deflater.finished()) {
+                out.write(buffer, 0, deflater.deflate(buffer));
+                if (out.size() > utf8.length) {
+                    return null;
+                }
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static byte[] inflate(byte[] data) {
+        int length = ByteBuffer.wrap(data, 1, 4).getInt();
+        Inflater inflater = new Inflater(true);
+        try {
+            inflater.setInput(data, DEFLATED_HEADER_SIZE, data.length - DEFLATED_HEADER_SIZE);
+            byte[] utf8 = new byte[length];
+            int offset = 0;
+            while (offset < length) {
+                int inflated = inflater.inflate(utf8, offset, length - offset);
+                if (inflated == 0 && (inflater.finished() || inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new IllegalStateException("Stored text is truncated");
+                }
+                offset += inflated;
+            }
+            return utf8;
+        } catch (DataFormatException e) {
+            throw new IllegalStateException("Stored text is corrupt", e);
+        } finally {
+            inflater.end();
+        }
+    }
+}
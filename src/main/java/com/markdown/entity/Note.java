@@ -3,31 +3,45 @@ package com.markdown.entity;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
 import org.hibernate.annotations.CreationTimestamp;
 import org.hibernate.annotations.UpdateTimestamp;
 
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "notes")
+@Table(name = "notes", indexes = @Index(name = "idx_notes_created_at_id", columnList = "created_at, id"))
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 public class Note {
 
+    public static final int ID_ALLOCATION_SIZE = 50;
+
+    // Sequence ids (rather than IDENTITY) let Hibernate batch inserts
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "notes_seq")
+    @SequenceGenerator(name = "notes_seq", sequenceName = "notes_seq", allocationSize = ID_ALLOCATION_SIZE)
     private Long id;
 
     @Column(nullable = false)
     private String title;
 
-    @Column(nullable = false, columnDefinition = "TEXT")
-    private String content;
-
     private String fileName;
 
+    // SHA-256 of the content, so caches can be keyed without loading the body
+    @Column(name = "content_hash", length = 64)
+    private String contentHash;
+
+    // Loaded only when the content or render is actually used; notes with identical content share it
+    @ManyToOne(fetch = FetchType.LAZY, cascade = CascadeType.PERSIST)
+    @JoinColumn(name = "content_id")
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private NoteContent body;
+
     @CreationTimestamp
     @Column(name = "created_at", nullable = false, updatable = false)
     private LocalDateTime createdAt;
@@ -35,5 +49,9 @@ public class Note {
     @UpdateTimestamp
     @Column(name = "updated_at")
     private LocalDateTime updatedAt;
+
+    // Incremented on every change; updates made against an older version fail instead of overwriting it
+    @Version
+    private Long version;
 }
 
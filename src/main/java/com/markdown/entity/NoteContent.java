@@ -0,0 +1,53 @@
+package com.markdown.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.ColumnDefault;
+
+/**
+ * The large parts of a note: its markdown and the stored render.
+ * Kept apart from {@link Note} so that listing and metadata queries never read them.
+ * Content is stored once per distinct hash and shared by every note that has it.
+ */
+@Entity
+@Table(name = "note_contents")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class NoteContent {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "note_contents_seq")
+    @SequenceGenerator(name = "note_contents_seq", sequenceName = "note_contents_seq", allocationSize = Note.ID_ALLOCATION_SIZE)
+    private Long id;
+
+    // Binary so that it can hold deflated text; see notes.storage.compression.*
+    @Convert(converter = CompressedTextConverter.class)
+    @Column(name = "content_data", columnDefinition = "BLOB")
+    private String content;
+
+    @Column(name = "rendered_html", columnDefinition = "TEXT")
+    private String renderedHtml;
+
+    @Column(name = "renderer_version")
+    private Integer rendererVersion;
+
+    // JSON list of NoteHeading; null until extracted
+    @Column(name = "outline", columnDefinition = "TEXT")
+    private String outline;
+
+    @Column(name = "content_hash", length = 64, unique = true)
+    private String contentHash;
+
+    // Number of notes pointing at this content; the content is deleted when the last one goes
+    // The default lets the column be added to existing rows, which the migration then counts
+    @ColumnDefault("0")
+    @Column(name = "ref_count", nullable = false)
+    private int refCount;
+
+    public NoteContent(String content) {
+        this.content = content;
+    }
+}
@@ -0,0 +1,7 @@
+package com.markdown.exception;
+
+public class NoteConflictException extends RuntimeException {
+    public NoteConflictException(String message) {
+        super(message);
+    }
+}
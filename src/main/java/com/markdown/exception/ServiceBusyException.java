@@ -0,0 +1,17 @@
+package com.markdown.exception;
+
+import org.springframework.http.HttpStatus;
+
+public class ServiceBusyException extends RuntimeException {
+
+    private final HttpStatus status;
+
+    public ServiceBusyException(HttpStatus status, String message) {
+        super(message);
+        this.status = status;
+    }
+
+    public HttpStatus getStatus() {
+        return status;
+    }
+}
@@ -0,0 +1,46 @@
+package com.markdown.repository;
+
+import com.markdown.dto.ContentReference;
+import com.markdown.entity.NoteContent;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface NoteContentRepository extends JpaRepository<NoteContent, Long>, NoteContentRepositoryCustom {
+    @Query("select c.id from NoteContent c where c.contentHash = :hash")
+    Optional<Long> findIdByContentHash(@Param("hash") String hash);
+
+    @Query("select new com.markdown.dto.ContentReference(c.id, c.contentHash) from NoteContent c " +
+            "where c.contentHash in :hashes")
+    List<ContentReference> findReferencesByContentHashIn(@Param("hashes") Collection<String> hashes);
+
+    @Query("select c from NoteContent c where c.rendererVersion is null or c.rendererVersion <> :version order by c.id")
+    List<NoteContent> findStaleRenders(@Param("version") int version, Pageable pageable);
+
+    // Bulk update so that refreshing a render neither loads the content nor bumps the note's updatedAt
+    @Modifying
+    @Query("update NoteContent c set c.renderedHtml = :html, c.rendererVersion = :version where c.id = :id")
+    int updateRenderedHtml(@Param("id") Long id, @Param("html") String html, @Param("version") int version);
+
+    @Modifying
+    @Query("update NoteContent c set c.outline = :outline where c.id = :id")
+    int updateOutline(@Param("id") Long id, @Param("outline") String outline);
+
+    // Atomic in the database, so concurrent saves of the same content count correctly
+    @Modifying
+    @Query("update NoteContent c set c.refCount = c.refCount + :delta where c.id = :id")
+    int addReferences(@Param("id") Long id, @Param("delta") int delta);
+
+    // Bulk delete, as deleteById would load the content first
+    @Modifying
+    @Query("delete from NoteContent c where c.id = :id and c.refCount <= 0")
+    int deleteIfUnreferenced(@Param("id") Long id);
+}
@@ -0,0 +1,9 @@
+package com.markdown.repository;
+
+public interface NoteContentRepositoryCustom {
+
+    /**
+     * Read part of a stored content, given as a UTF-8 byte range, without loading the rest of it
+     */
+    String readContentRange(Long id, long start, int length);
+}
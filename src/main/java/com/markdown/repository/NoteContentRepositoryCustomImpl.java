@@ -0,0 +1,35 @@
+package com.markdown.repository;
+
+import com.markdown.entity.CompressedTextConverter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Range reads over the content stream. The stream of a stored LOB skips whole blocks without reading them,
+ * so reading a section costs about the same wherever it is in the content (unless the content is deflated,
+ * which has to be inflated up to the section). SQL SUBSTRING would read the whole value.
+ */
+@RequiredArgsConstructor
+public class NoteContentRepositoryCustomImpl implements NoteContentRepositoryCustom {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public String readContentRange(Long id, long start, int length) {
+        return jdbcTemplate.query("SELECT content_data FROM note_contents WHERE id = ?", rs -> {
+            if (!rs.next()) {
+                throw new IllegalStateException("Note content not found with id: " + id);
+            }
+            try (InputStream text = CompressedTextConverter.openUtf8(rs.getBinaryStream(1))) {
+                text.skipNBytes(start);
+                return new String(text.readNBytes(length), StandardCharsets.UTF_8);
+            } catch (IOException e) {
+                throw new IllegalStateException("Could not read note content " + id, e);
+            }
+        }, id);
+    }
+}
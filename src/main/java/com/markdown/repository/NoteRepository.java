@@ -1,13 +1,66 @@
 package com.markdown.repository;
 
+import com.markdown.dto.ContentOutline;
+import com.markdown.dto.NoteSummary;
+import com.markdown.dto.NoteVersion;
 import com.markdown.entity.Note;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.AvailableHints;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface NoteRepository extends JpaRepository<Note, Long> {
-    List<Note> findAllByOrderByCreatedAtDesc();
+    @Query("select new com.markdown.dto.NoteSummary(n.id, n.title, n.fileName, n.createdAt, n.updatedAt) " +
+            "from Note n order by n.createdAt desc, n.id desc")
+    List<NoteSummary> findFirstSummaries(Pageable pageable);
+
+    @Query("select new com.markdown.dto.NoteSummary(n.id, n.title, n.fileName, n.createdAt, n.updatedAt) " +
+            "from Note n where n.createdAt < :createdAt or (n.createdAt = :createdAt and n.id < :id) " +
+            "order by n.createdAt desc, n.id desc")
+    List<NoteSummary> findSummariesBefore(@Param("createdAt") LocalDateTime createdAt, @Param("id") Long id,
+                                          Pageable pageable);
+
+    @Query("select new com.markdown.dto.NoteVersion(n.id, n.createdAt, n.updatedAt) from Note n where n.id = :id")
+    Optional<NoteVersion> findVersionById(@Param("id") Long id);
+
+    @EntityGraph(attributePaths = "body")
+    Optional<Note> findWithBodyById(Long id);
+
+    // Row lock held until commit, so that writers of the same note take turns instead of failing a version check
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    Optional<Note> findLockedById(Long id);
+
+    @EntityGraph(attributePaths = "body")
+    List<Note> findAllWithBodyByIdIn(Collection<Long> ids);
+
+    @Query("select n.id from Note n where n.id > :after " +
+            "and (:updatedSince is null or coalesce(n.updatedAt, n.createdAt) >= :updatedSince) order by n.id")
+    List<Long> findIdsAfter(@Param("after") Long after, @Param("updatedSince") LocalDateTime updatedSince,
+                            Pageable pageable);
+
+    @Query("select new com.markdown.dto.ContentOutline(c.id, c.outline) from Note n join n.body c where n.id = :id")
+    Optional<ContentOutline> findOutlineById(@Param("id") Long id);
+
+    @Query("select n.body.content from Note n where n.id = :id")
+    Optional<String> findContentById(@Param("id") Long id);
+
+    // Streams through a JDBC cursor; must be consumed inside a transaction
+    @QueryHints(@QueryHint(name = AvailableHints.HINT_FETCH_SIZE, value = "200"))
+    @Query("select n from Note n join fetch n.body order by n.id")
+    Stream<Note> streamAllByOrderById();
 }
 
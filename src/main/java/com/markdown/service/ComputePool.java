@@ -0,0 +1,133 @@
+package com.markdown.service;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Platform threads for CPU-heavy work (markdown rendering, grammar checks).
+ * Callers on virtual threads hand their work over and park until it is done, so long computations and the
+ * synchronized sections inside CommonMark and LanguageTool never pin the carrier threads that serve requests.
+ * Callers on platform threads run the work themselves.
+ */
+@Component
+public class ComputePool {
+
+    private static final MethodHandle IS_VIRTUAL = findIsVirtual();
+
+    private final int size;
+    private final ExecutorService executor;
+
+    public ComputePool(@Value("${compute.pool.size:0}") int size) {
+        this.size = size > 0 ? size : Runtime.getRuntime().availableProcessors();
+        this.executor = Executors.newFixedThreadPool(this.size, new ComputeThreadFactory());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Run a computation on a platform thread and return its result
+     */
+    public <T> T compute(ComputeTask<T> task) throws IOException {
+        if (!isVirtualThread()) {
+            return task.call();
+        }
+
+        Future<T> future = executor.submit(task::call);
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a computation", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException ioException) {
+                throw ioException;
+            }
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (cause instanceof Error error) {
+                throw error;
+            }
+            throw new IllegalStateException(cause);
+        }
+    }
+
+    /**
+     * Run a computation that cannot fail with an I/O error
+     */
+    public <T> T computeUnchecked(ComputeTask<T> task) {
+        try {
+            return compute(task);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Create a completion service running tasks on the pool's threads, for callers that fan work out and
+     * consume the results as they finish. Unlike compute(), tasks always run on the pool, whatever the caller.
+     */
+    public <T> CompletionService<T> newCompletionService() {
+        return new ExecutorCompletionService<>(executor);
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    private static boolean isVirtualThread() {
+        if (IS_VIRTUAL == null) {
+            return false;
+        }
+        try {
+            return (boolean) IS_VIRTUAL.invokeExact(Thread.currentThread());
+        } catch (Throwable e) {
+            return false;
+        }
+    }
+
+    // Thread.isVirtual() only exists on Java 21+, while the code base still compiles for Java 17
+    private static MethodHandle findIsVirtual() {
+        try {
+            return MethodHandles.publicLookup().findVirtual(Thread.class, "isVirtual", MethodType.methodType(boolean.class));
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            return null;
+        }
+    }
+
+    @FunctionalInterface
+    public interface ComputeTask<T> {
+        T call() throws IOException;
+    }
+
+    private static final class ComputeThreadFactory implements ThreadFactory {
+
+        private final AtomicInteger threadCount = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "compute-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
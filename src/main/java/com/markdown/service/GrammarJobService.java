@@ -0,0 +1,252 @@
+package com.markdown.service;
+
+import com.markdown.dto.GrammarCheckMode;
+import com.markdown.dto.GrammarCheckResponse;
+import com.markdown.dto.GrammarJobResponse;
+import com.markdown.dto.GrammarJobStats;
+import com.markdown.dto.GrammarJobStatus;
+import com.markdown.exception.ResourceNotFoundException;
+import com.markdown.exception.ServiceBusyException;
+import com.markdown.util.ContentHash;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs grammar checks of notes in the background on a dedicated, bounded executor.
+ * Identical checks (same note, mode and content) that are still queued or running share one job.
+ */
+@Slf4j
+@Service
+public class GrammarJobService {
+
+    private final NoteService noteService;
+    private final GrammarService grammarService;
+    private final ThreadPoolExecutor executor;
+    private final long retentionMillis;
+    private final long sseTimeoutMillis;
+
+    private final Map<String, GrammarJob> jobs = new ConcurrentHashMap<>();
+    private final Map<String, GrammarJob> pending = new ConcurrentHashMap<>();
+
+    private final AtomicLong submittedCount = new AtomicLong();
+    private final AtomicLong deduplicatedCount = new AtomicLong();
+    private final AtomicLong rejectedCount = new AtomicLong();
+
+    public GrammarJobService(NoteService noteService,
+                             GrammarService grammarService,
+                             LanguageToolPool languageToolPool,
+                             @Value("${grammar.jobs.threads:0}") int threads,
+                             @Value("${grammar.jobs.queue-capacity:100}") int queueCapacity,
+                             @Value("${grammar.jobs.retention-ms:600000}") long retentionMillis,
+                             @Value("${grammar.jobs.sse-timeout-ms:120000}") long sseTimeoutMillis) {
+        this.noteService = noteService;
+        this.grammarService = grammarService;
+        this.retentionMillis = retentionMillis;
+        this.sseTimeoutMillis = sseTimeoutMillis;
+
+        // More workers than pooled checkers would only make them wait for an instance
+        int workers = threads > 0 ? threads : languageToolPool.getSize();
+        this.executor = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, queueCapacity)), new GrammarJobThreadFactory(),
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Queue a grammar check of a note, or join an identical check that has not finished yet
+     */
+    public GrammarJobResponse submit(Long noteId, GrammarCheckMode mode) {
+        String content = noteService.getNoteContent(noteId);
+        String key = noteId + ":" + mode + ":" + ContentHash.sha256(content == null ? "" : content);
+
+        GrammarJob created = new GrammarJob(UUID.randomUUID().toString(), noteId, mode);
+        // Registered before it is published, so that a caller joining it can look it up right away
+        GrammarJob job = pending.computeIfAbsent(key, k -> {
+            jobs.put(created.id, created);
+            return created;
+        });
+        if (job != created) {
+            deduplicatedCount.incrementAndGet();
+            return job.toResponse();
+        }
+
+        try {
+            executor.execute(() -> run(job, key, content));
+        } catch (RejectedExecutionException e) {
+            rejectedCount.incrementAndGet();
+            job.fail("Grammar check queue is full");
+            pending.remove(key, job);
+            throw new ServiceBusyException(HttpStatus.TOO_MANY_REQUESTS,
+                    "Too many grammar checks queued, please retry later");
+        }
+        submittedCount.incrementAndGet();
+        return job.toResponse();
+    }
+
+    /**
+     * Get the current state of a job, including its result once completed
+     */
+    public GrammarJobResponse getJob(String id) {
+        return findJob(id).toResponse();
+    }
+
+    /**
+     * Stream the state of a job: one event now and one when it finishes
+     */
+    public SseEmitter subscribe(String id) {
+        GrammarJob job = findJob(id);
+        SseEmitter emitter = new SseEmitter(sseTimeoutMillis);
+        try {
+            emitter.send(SseEmitter.event().name("status").data(job.toResponse()));
+        } catch (IOException e) {
+            emitter.completeWithError(e);
+            return emitter;
+        }
+
+        job.done.whenComplete((result, error) -> {
+            try {
+                emitter.send(SseEmitter.event().name("result").data(job.toResponse()));
+                emitter.complete();
+            } catch (IOException | IllegalStateException e) {
+                // The client went away or the emitter timed out; nothing left to deliver
+                emitter.completeWithError(e);
+            }
+        });
+        return emitter;
+    }
+
+    /**
+     * Get a snapshot of the job executor metrics
+     */
+    public GrammarJobStats getStats() {
+        return new GrammarJobStats(
+                executor.getMaximumPoolSize(),
+                executor.getActiveCount(),
+                executor.getQueue().size(),
+                executor.getQueue().remainingCapacity(),
+                jobs.size(),
+                submittedCount.get(),
+                deduplicatedCount.get(),
+                rejectedCount.get()
+        );
+    }
+
+    /**
+     * Forget finished jobs once their retention period has passed
+     */
+    @Scheduled(fixedDelayString = "${grammar.jobs.cleanup-interval-ms:60000}")
+    public void evictExpiredJobs() {
+        LocalDateTime cutoff = LocalDateTime.now().minus(retentionMillis, ChronoUnit.MILLIS);
+        jobs.values().removeIf(job -> job.isFinishedBefore(cutoff));
+    }
+
+    private void run(GrammarJob job, String key, String content) {
+        try {
+            job.start();
+            job.complete(grammarService.checkGrammarInBackground(content, job.mode));
+        } catch (RuntimeException e) {
+            log.warn("Grammar check job {} for note {} failed: {}", job.id, job.noteId, e.getMessage());
+            job.fail(e.getMessage());
+        } catch (Error e) {
+            // Don't leave the job RUNNING forever
+            job.fail("Grammar check failed: " + e);
+            throw e;
+        } finally {
+            pending.remove(key, job);
+        }
+    }
+
+    private GrammarJob findJob(String id) {
+        GrammarJob job = jobs.get(id);
+        if (job == null) {
+            throw new ResourceNotFoundException("Grammar check job not found with id: " + id);
+        }
+        return job;
+    }
+
+    private static final class GrammarJob {
+
+        private final String id;
+        private final Long noteId;
+        private final GrammarCheckMode mode;
+        private final LocalDateTime submittedAt = LocalDateTime.now();
+        private final CompletableFuture<Void> done = new CompletableFuture<>();
+
+        private GrammarJobStatus status = GrammarJobStatus.QUEUED;
+        private LocalDateTime completedAt;
+        private GrammarCheckResponse result;
+        private String error;
+
+        GrammarJob(String id, Long noteId, GrammarCheckMode mode) {
+            this.id = id;
+            this.noteId = noteId;
+            this.mode = mode;
+        }
+
+        synchronized void start() {
+            status = GrammarJobStatus.RUNNING;
+        }
+
+        void complete(GrammarCheckResponse response) {
+            synchronized (this) {
+                status = GrammarJobStatus.COMPLETED;
+                result = response;
+                completedAt = LocalDateTime.now();
+            }
+            done.complete(null);
+        }
+
+        void fail(String message) {
+            synchronized (this) {
+                status = GrammarJobStatus.FAILED;
+                error = message;
+                completedAt = LocalDateTime.now();
+            }
+            done.complete(null);
+        }
+
+        synchronized boolean isFinishedBefore(LocalDateTime cutoff) {
+            return completedAt != null && completedAt.isBefore(cutoff);
+        }
+
+        synchronized GrammarJobResponse toResponse() {
+            return new GrammarJobResponse(id, noteId, mode, status, submittedAt, completedAt, result, error);
+        }
+    }
+
+    private static final class GrammarJobThreadFactory implements ThreadFactory {
+
+        private final AtomicInteger threadCount = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "grammar-job-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
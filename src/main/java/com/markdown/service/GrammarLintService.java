@@ -0,0 +1,333 @@
+package com.markdown.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.markdown.dto.GrammarCheckMode;
+import com.markdown.dto.GrammarError;
+import com.markdown.dto.GrammarJobStatus;
+import com.markdown.dto.GrammarLintResult;
+import com.markdown.dto.GrammarLintStatus;
+import com.markdown.dto.NoteResponse;
+import com.markdown.exception.ResourceNotFoundException;
+import com.markdown.exception.ServiceBusyException;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Checks the grammar of every note in the background, e.g. as a nightly audit.
+ * Notes are read in id order a chunk at a time and checked in parallel by one worker per LanguageTool instance
+ * that background checks may hold, waiting for a free one rather than competing with requests for admission.
+ * Each note's result is appended to a newline-delimited JSON file, and issues are counted per rule.
+ * Progress is checkpointed after every chunk, so an interrupted run resumes where it stopped.
+ */
+@Slf4j
+@Service
+public class GrammarLintService {
+
+    private static final String RESULTS_FILE = "results.ndjson";
+    private static final String CHECKPOINT_FILE = "checkpoint.json";
+    private static final int OUTPUT_BUFFER_SIZE = 64 * 1024;
+
+    private final NoteService noteService;
+    private final GrammarService grammarService;
+    private final ObjectMapper objectMapper;
+    private final ExecutorService runner;
+    private final ExecutorService workers;
+    private final int workerCount;
+    private final int chunkSize;
+    private final GrammarCheckMode scheduledMode;
+    private final boolean resumeOnStartup;
+    private final Path outputDirectory;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+    private volatile GrammarLintStatus current;
+
+    public GrammarLintService(NoteService noteService,
+                              GrammarService grammarService,
+                              LanguageToolPool languageToolPool,
+                              ObjectMapper objectMapper,
+                              @Value("${grammar.lint.workers:0}") int workers,
+                              @Value("${grammar.lint.chunk-size:200}") int chunkSize,
+                              @Value("${grammar.lint.mode:markdown}") String scheduledMode,
+                              @Value("${grammar.lint.resume-on-startup:true}") boolean resumeOnStartup,
+                              @Value("${grammar.lint.output-dir:./data/grammar-lint}") String outputDirectory) {
+        this.noteService = noteService;
+        this.grammarService = grammarService;
+        this.objectMapper = objectMapper;
+        this.chunkSize = Math.max(1, chunkSize);
+        this.scheduledMode = GrammarCheckMode.fromParameter(scheduledMode);
+        this.resumeOnStartup = resumeOnStartup;
+        this.outputDirectory = Paths.get(outputDirectory);
+
+        // More workers than the checkers background checks may hold would only make them wait for one
+        this.workerCount = workers > 0 ? workers : languageToolPool.getBackgroundLimit();
+        this.runner = Executors.newSingleThreadExecutor(new GrammarLintThreadFactory("grammar-lint"));
+        this.workers = Executors.newFixedThreadPool(workerCount, new GrammarLintThreadFactory("grammar-lint-worker"));
+        this.current = readCheckpoint();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        // The checkpoint keeps the run RUNNING, so it resumes after the restart
+        runner.shutdownNow();
+        workers.shutdownNow();
+    }
+
+    /**
+     * Start a lint of every note. An unfinished run with the same mode is resumed from its checkpoint
+     * unless restart is set.
+     */
+    public GrammarLintStatus start(GrammarCheckMode mode, boolean restart) {
+        if (!running.compareAndSet(false, true)) {
+            throw new ServiceBusyException(HttpStatus.CONFLICT, "A grammar lint is already running");
+        }
+        return begin(mode, restart);
+    }
+
+    /**
+     * Get the progress of the current or last run
+     */
+    public GrammarLintStatus getStatus() {
+        GrammarLintStatus status = current;
+        if (status == null) {
+            throw new ResourceNotFoundException("No grammar lint has been run yet");
+        }
+        return status;
+    }
+
+    /**
+     * Get the results file of the current or last run
+     */
+    public Path getResultsFile() {
+        Path resultsFile = outputDirectory.resolve(RESULTS_FILE);
+        if (current == null || !Files.exists(resultsFile)) {
+            throw new ResourceNotFoundException("No grammar lint has been run yet");
+        }
+        return resultsFile;
+    }
+
+    /**
+     * Resume a run that was interrupted by a shutdown
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumeInterrupted() {
+        GrammarLintStatus checkpoint = current;
+        if (resumeOnStartup && checkpoint != null && checkpoint.getStatus() == GrammarJobStatus.RUNNING) {
+            start(checkpoint.getMode(), false);
+        }
+    }
+
+    /**
+     * Scheduled lint, disabled unless grammar.lint.cron is set
+     */
+    @Scheduled(cron = "${grammar.lint.cron:-}")
+    public void runScheduled() {
+        if (!running.compareAndSet(false, true)) {
+            log.info("Skipping the scheduled grammar lint, a run is still in progress");
+            return;
+        }
+        begin(scheduledMode, false);
+    }
+
+    /**
+     * Start a run once this caller has claimed the running flag
+     */
+    private GrammarLintStatus begin(GrammarCheckMode mode, boolean restart) {
+        GrammarLintStatus checkpoint = current;
+        GrammarLintStatus status;
+        if (!restart && checkpoint != null && checkpoint.getMode() == mode
+                && checkpoint.getStatus() != GrammarJobStatus.COMPLETED) {
+            status = copyOf(checkpoint);
+            status.setRuleCounts(new HashMap<>(checkpoint.getRuleCounts()));
+            status.setStatus(GrammarJobStatus.RUNNING);
+            status.setWorkers(workerCount);
+            status.setError(null);
+            log.info("Resuming grammar lint after note {} ({} notes checked)", status.getLastNoteId(), status.getNotesChecked());
+        } else {
+            status = new GrammarLintStatus(GrammarJobStatus.RUNNING, mode, LocalDateTime.now(), null, workerCount,
+                    0, 0, 0, 0, 0, new HashMap<>(), null);
+        }
+
+        GrammarLintStatus started = publish(status);
+        runner.execute(() -> run(status));
+        return started;
+    }
+
+    private void run(GrammarLintStatus status) {
+        try {
+            Files.createDirectories(outputDirectory);
+            try (FileChannel channel = FileChannel.open(outputDirectory.resolve(RESULTS_FILE),
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+                // Drop results written after the checkpoint, their notes are checked again
+                channel.truncate(status.getResultBytes());
+                channel.position(status.getResultBytes());
+                OutputStream outputStream = new BufferedOutputStream(Channels.newOutputStream(channel), OUTPUT_BUFFER_SIZE);
+                JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream);
+                generator.setRootValueSeparator(null);
+
+                List<NoteResponse> notes;
+                while (!(notes = noteService.getNotesAfter(status.getLastNoteId(), chunkSize)).isEmpty()) {
+                    checkChunk(notes, status, generator);
+                    generator.flush();
+                    status.setLastNoteId(notes.get(notes.size() - 1).getId());
+                    status.setResultBytes(channel.position());
+                    publish(status);
+                }
+            }
+
+            status.setStatus(GrammarJobStatus.COMPLETED);
+            status.setCompletedAt(LocalDateTime.now());
+            publish(status);
+            log.info("Grammar lint checked {} notes and found {} issues", status.getNotesChecked(), status.getTotalErrors());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.info("Grammar lint interrupted after note {}", status.getLastNoteId());
+        } catch (IOException | RuntimeException e) {
+            if (runner.isShutdown()) {
+                log.info("Grammar lint stopped by shutdown after note {}", status.getLastNoteId());
+                return;
+            }
+            log.warn("Grammar lint failed after note {}: {}", status.getLastNoteId(), e.getMessage());
+            status.setStatus(GrammarJobStatus.FAILED);
+            status.setError(e.getMessage());
+            publish(status);
+        } finally {
+            running.set(false);
+        }
+    }
+
+    private void checkChunk(List<NoteResponse> notes, GrammarLintStatus status, JsonGenerator generator)
+            throws IOException, InterruptedException {
+        CompletionService<GrammarLintResult> checks = new ExecutorCompletionService<>(workers);
+        for (NoteResponse note : notes) {
+            checks.submit(() -> check(note, status.getMode()));
+        }
+
+        for (int i = 0; i < notes.size(); i++) {
+            GrammarLintResult result;
+            try {
+                result = checks.take().get();
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Grammar lint worker failed", e.getCause());
+            }
+            generator.writeObject(result);
+            generator.writeRaw('\n');
+
+            if (result.getResult() == null) {
+                status.setNotesFailed(status.getNotesFailed() + 1);
+                continue;
+            }
+            status.setNotesChecked(status.getNotesChecked() + 1);
+            status.setTotalErrors(status.getTotalErrors() + result.getResult().getTotalErrors());
+            for (GrammarError error : result.getResult().getErrors()) {
+                status.getRuleCounts().merge(error.getRuleId(), 1L, Long::sum);
+            }
+        }
+    }
+
+    /**
+     * Check a note. A note that could not be checked is recorded as failed, but not one whose wait for a checker
+     * was interrupted: the run then stops before its chunk is checkpointed, so that resuming checks the note again.
+     */
+    private GrammarLintResult check(NoteResponse note, GrammarCheckMode mode) {
+        try {
+            return new GrammarLintResult(note.getId(), note.getTitle(),
+                    grammarService.checkGrammarInBackground(note.getContent(), mode), null);
+        } catch (ServiceBusyException e) {
+            throw e;
+        } catch (RuntimeException e) {
+            return new GrammarLintResult(note.getId(), note.getTitle(), null, e.getMessage());
+        }
+    }
+
+    /**
+     * Make a copy of the run's state visible to readers and save it as the checkpoint
+     */
+    private GrammarLintStatus publish(GrammarLintStatus status) {
+        GrammarLintStatus snapshot = copyOf(status);
+        current = snapshot;
+        try {
+            Files.createDirectories(outputDirectory);
+            Path checkpoint = outputDirectory.resolve(CHECKPOINT_FILE);
+            Path temporary = outputDirectory.resolve(CHECKPOINT_FILE + ".tmp");
+            objectMapper.writeValue(temporary.toFile(), snapshot);
+            Files.move(temporary, checkpoint, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            log.warn("Could not save the grammar lint checkpoint: {}", e.getMessage());
+        }
+        return snapshot;
+    }
+
+    private GrammarLintStatus readCheckpoint() {
+        Path checkpoint = outputDirectory.resolve(CHECKPOINT_FILE);
+        if (!Files.exists(checkpoint)) {
+            return null;
+        }
+        try {
+            return objectMapper.readValue(checkpoint.toFile(), GrammarLintStatus.class);
+        } catch (IOException e) {
+            log.warn("Ignoring unreadable grammar lint checkpoint {}: {}", checkpoint, e.getMessage());
+            return null;
+        }
+    }
+
+    private static GrammarLintStatus copyOf(GrammarLintStatus status) {
+        Map<String, Long> ruleCounts = new LinkedHashMap<>();
+        status.getRuleCounts().entrySet().stream()
+                .sorted(Map.Entry.<String, Long>comparingByValue(Comparator.reverseOrder())
+                        .thenComparing(Map.Entry.comparingByKey()))
+                .forEach(entry -> ruleCounts.put(entry.getKey(), entry.getValue()));
+
+        return new GrammarLintStatus(status.getStatus(), status.getMode(), status.getStartedAt(),
+                status.getCompletedAt(), status.getWorkers(), status.getLastNoteId(), status.getNotesChecked(),
+                status.getNotesFailed(), status.getTotalErrors(), status.getResultBytes(), ruleCounts, status.getError());
+    }
+
+    private static final class GrammarLintThreadFactory implements ThreadFactory {
+
+        private final String prefix;
+        private final AtomicInteger threadCount = new AtomicInteger();
+
+        private GrammarLintThreadFactory(String prefix) {
+            this.prefix = prefix;
+        }
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, prefix + "-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -1,65 +1,269 @@
 package com.markdown.service;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.markdown.dto.GrammarCheckMode;
 import com.markdown.dto.GrammarCheckResponse;
 import com.markdown.dto.GrammarError;
-import org.languagetool.JLanguageTool;
-import org.languagetool.language.AmericanEnglish;
+import com.markdown.util.ContentHash;
+import com.markdown.util.SourceLines;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.commonmark.node.Node;
 import org.languagetool.rules.RuleMatch;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 @Service
 public class GrammarService {
 
-    private final JLanguageTool languageTool;
+    private final LanguageToolPool languageToolPool;
+    private final MarkdownService markdownService;
+    private final MeterRegistry meterRegistry;
+    private final Cache<String, List<ParagraphMatch>> paragraphCache;
+    private final Map<GrammarCheckMode, Timer> checkTimers = new EnumMap<>(GrammarCheckMode.class);
+    private final Map<String, Counter> ruleMatchCounters = new ConcurrentHashMap<>();
 
-    public GrammarService() {
-        this.languageTool = new JLanguageTool(new AmericanEnglish());
+    public GrammarService(LanguageToolPool languageToolPool,
+                          MarkdownService markdownService,
+                          MeterRegistry meterRegistry,
+                          @Value("${grammar.cache.max-entries:50000}") long maxCachedParagraphs) {
+        this.languageToolPool = languageToolPool;
+        this.markdownService = markdownService;
+        this.meterRegistry = meterRegistry;
+        this.paragraphCache = Caffeine.newBuilder()
+                .maximumSize(maxCachedParagraphs)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, paragraphCache, "grammar.paragraphs");
+        for (GrammarCheckMode mode : GrammarCheckMode.values()) {
+            checkTimers.put(mode, Timer.builder("grammar.check")
+                    .description("Time to check the grammar of a text")
+                    .tag("mode", mode.name().toLowerCase(Locale.ROOT))
+                    .register(meterRegistry));
+        }
     }
 
     /**
-     * Check grammar of the provided text
+     * Check grammar of the provided plain text
      */
     public GrammarCheckResponse checkGrammar(String text) {
+        return checkGrammar(text, GrammarCheckMode.PLAIN);
+    }
+
+    /**
+     * Check grammar of the provided text.
+     * The text is checked paragraph by paragraph (top-level block by block for markdown); results are cached
+     * per paragraph content, so after an edit only the changed paragraphs go through LanguageTool again.
+     */
+    public GrammarCheckResponse checkGrammar(String text, GrammarCheckMode mode) {
+        return checkGrammar(text, mode, false);
+    }
+
+    /**
+     * Check grammar for a background task (grammar jobs, the lint), waiting for a pooled checker as long as it takes
+     * instead of failing fast like a request does
+     */
+    public GrammarCheckResponse checkGrammarInBackground(String text, GrammarCheckMode mode) {
+        return checkGrammar(text, mode, true);
+    }
+
+    private GrammarCheckResponse checkGrammar(String text, GrammarCheckMode mode, boolean background) {
         if (text == null || text.trim().isEmpty()) {
             return new GrammarCheckResponse(0, new ArrayList<>(), "No text provided for grammar check.");
         }
 
+        Timer.Sample sample = Timer.start(meterRegistry);
         try {
-            List<RuleMatch> matches = languageTool.check(text);
-            List<GrammarError> errors = new ArrayList<>();
-
-            for (RuleMatch match : matches) {
-                GrammarError error = new GrammarError();
-                error.setMessage(match.getMessage());
-                error.setLine(match.getLine());
-                error.setColumn(match.getColumn());
-                error.setLength(match.getToPos() - match.getFromPos());
-
-                // Get context around the error
-                int contextStart = Math.max(0, match.getFromPos() - 20);
-                int contextEnd = Math.min(text.length(), match.getToPos() + 20);
-                error.setContext(text.substring(contextStart, contextEnd));
+            int[] lineStarts = SourceLines.lineStarts(text);
+            List<Paragraph> paragraphs = mode == GrammarCheckMode.MARKDOWN
+                    ? splitBlocks(text, lineStarts)
+                    : splitParagraphs(text);
+            Map<Paragraph, List<ParagraphMatch>> results = new HashMap<>();
+            List<Paragraph> uncached = new ArrayList<>();
+            for (Paragraph paragraph : paragraphs) {
+                List<ParagraphMatch> cached = paragraphCache.getIfPresent(paragraph.key());
+                if (cached != null) {
+                    results.put(paragraph, cached);
+                } else {
+                    uncached.add(paragraph);
+                }
+            }
 
-                // Get suggestions
-                List<String> suggestionsList = match.getSuggestedReplacements();
-                error.setSuggestions(suggestionsList.toArray(new String[0]));
+            if (!uncached.isEmpty()) {
+                LanguageToolPool.LanguageToolTask<Map<Paragraph, List<ParagraphMatch>>> task = languageTool -> {
+                    Map<Paragraph, List<ParagraphMatch>> checked = new HashMap<>();
+                    for (Paragraph paragraph : uncached) {
+                        List<RuleMatch> ruleMatches = paragraph.block() == null
+                                ? languageTool.check(paragraph.text())
+                                : languageTool.check(MarkdownProse.annotate(paragraph.block(), text, lineStarts,
+                                        paragraph.offset(), paragraph.offset() + paragraph.text().length()));
+                        List<ParagraphMatch> matches = ruleMatches.stream()
+                                .map(ParagraphMatch::of)
+                                .toList();
+                        paragraphCache.put(paragraph.key(), matches);
+                        checked.put(paragraph, matches);
+                    }
+                    return checked;
+                };
+                results.putAll(background ? languageToolPool.executeInBackground(task) : languageToolPool.execute(task));
+            }
 
-                errors.add(error);
+            List<GrammarError> errors = new ArrayList<>();
+            for (Paragraph paragraph : paragraphs) {
+                for (ParagraphMatch match : results.get(paragraph)) {
+                    errors.add(toGrammarError(text, paragraph, match));
+                    ruleMatchCounter(match.ruleId()).increment();
+                }
             }
 
-            String summary = matches.isEmpty()
+            String summary = errors.isEmpty()
                 ? "No grammar issues found!"
-                : String.format("Found %d potential grammar issue(s).", matches.size());
+                : String.format("Found %d potential grammar issue(s).", errors.size());
 
-            return new GrammarCheckResponse(matches.size(), errors, summary);
+            return new GrammarCheckResponse(errors.size(), errors, summary);
 
         } catch (IOException e) {
             throw new RuntimeException("Error checking grammar: " + e.getMessage(), e);
+        } finally {
+            sample.stop(checkTimers.get(mode));
         }
     }
-}
 
+    private Counter ruleMatchCounter(String ruleId) {
+        return ruleMatchCounters.computeIfAbsent(ruleId, id -> Counter.builder("grammar.rule.matches")
+                .description("Grammar issues reported, by LanguageTool rule")
+                .tag("rule", id)
+                .register(meterRegistry));
+    }
+
+    /**
+     * Shift a paragraph-relative match to its position in the whole text
+     */
+    private GrammarError toGrammarError(String text, Paragraph paragraph, ParagraphMatch match) {
+        int fromPos = paragraph.offset() + match.fromPos();
+        int toPos = paragraph.offset() + match.toPos();
+
+        // Paragraphs start at the beginning of a line: count lines within the paragraph, columns are 1-based
+        String paragraphText = paragraph.text();
+        int lineInParagraph = 0;
+        int lineStart = 0;
+        for (int i = 0; i < match.fromPos(); i++) {
+            if (paragraphText.charAt(i) == '\n') {
+                lineInParagraph++;
+                lineStart = i + 1;
+            }
+        }
+
+        GrammarError error = new GrammarError();
+        error.setRuleId(match.ruleId());
+        error.setMessage(match.message());
+        error.setLine(paragraph.line() + lineInParagraph);
+        error.setColumn(match.fromPos() - lineStart + 1);
+        error.setLength(toPos - fromPos);
+
+        // Get context around the error
+        int contextStart = Math.max(0, fromPos - 20);
+        int contextEnd = Math.min(text.length(), toPos + 20);
+        error.setContext(text.substring(contextStart, contextEnd));
+
+        error.setSuggestions(match.suggestions().toArray(new String[0]));
+        return error;
+    }
+
+    /**
+     * Split text into paragraphs separated by blank lines, remembering where each one starts
+     */
+    private static List<Paragraph> splitParagraphs(String text) {
+        List<Paragraph> paragraphs = new ArrayList<>();
+        int line = 0;
+        int position = 0;
+        int paragraphStart = -1;
+        int paragraphLine = 0;
+        int paragraphEnd = 0;
+
+        while (position < text.length()) {
+            int lineEnd = text.indexOf('\n', position);
+            int next = lineEnd == -1 ? text.length() : lineEnd + 1;
+            int contentEnd = lineEnd == -1 ? text.length() : lineEnd;
+
+            if (text.substring(position, contentEnd).isBlank()) {
+                if (paragraphStart >= 0) {
+                    paragraphs.add(Paragraph.of(text, paragraphStart, paragraphEnd, paragraphLine));
+                    paragraphStart = -1;
+                }
+            } else {
+                if (paragraphStart < 0) {
+                    paragraphStart = position;
+                    paragraphLine = line;
+                }
+                paragraphEnd = contentEnd;
+            }
+
+            position = next;
+            line++;
+        }
+        if (paragraphStart >= 0) {
+            paragraphs.add(Paragraph.of(text, paragraphStart, paragraphEnd, paragraphLine));
+        }
+        return paragraphs;
+    }
+
+    /**
+     * Split markdown into its top-level blocks, leaving out those without prose such as code blocks
+     */
+    private List<Paragraph> splitBlocks(String markdown, int[] lineStarts) {
+        Node document = markdownService.parseWithSourceSpans(markdown);
+        List<Paragraph> blocks = new ArrayList<>();
+        for (Node block = document.getFirstChild(); block != null; block = block.getNext()) {
+            if (block.getSourceSpans().isEmpty() || !MarkdownProse.hasProse(block, markdown, lineStarts)) {
+                continue;
+            }
+            int line = block.getSourceSpans().get(0).getLineIndex();
+            int start = lineStarts[line];
+            String blockText = markdown.substring(start, MarkdownProse.endOffset(block, lineStarts));
+            blocks.add(new Paragraph(start, line, blockText,
+                    GrammarCheckMode.MARKDOWN + ":" + ContentHash.sha256(blockText), block));
+        }
+        return blocks;
+    }
+
+    /**
+     * A checked unit of text: a paragraph, or a top-level block when checking markdown
+     */
+    private record Paragraph(int offset, int line, String text, String key, Node block) {
+
+        static Paragraph of(String text, int start, int end, int line) {
+            String paragraphText = text.substring(start, end);
+            return new Paragraph(start, line, paragraphText,
+                    GrammarCheckMode.PLAIN + ":" + ContentHash.sha256(paragraphText), null);
+        }
+    }
+
+    /**
+     * A LanguageTool match with positions relative to the start of its paragraph
+     */
+    private record ParagraphMatch(String ruleId, String message, int fromPos, int toPos, List<String> suggestions) {
+
+        static ParagraphMatch of(RuleMatch match) {
+            return new ParagraphMatch(
+                    match.getRule().getId(),
+                    match.getMessage(),
+                    match.getFromPos(),
+                    match.getToPos(),
+                    List.copyOf(match.getSuggestedReplacements())
+            );
+        }
+    }
+}
@@ -0,0 +1,192 @@
+package com.markdown.service;
+
+import com.markdown.dto.GrammarPoolStats;
+import com.markdown.exception.ServiceBusyException;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.languagetool.JLanguageTool;
+import org.languagetool.language.AmericanEnglish;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded pool of warmed-up LanguageTool instances.
+ * JLanguageTool is not thread-safe, so every check borrows an instance exclusively.
+ */
+@Slf4j
+@Component
+public class LanguageToolPool {
+
+    private static final String WARM_UP_TEXT = "This is a short sentence used to warm up the grammar rules.";
+
+    private final int size;
+    private final long borrowTimeoutMillis;
+    private final BlockingQueue<JLanguageTool> idle;
+    private final Semaphore admission;
+    private final int backgroundLimit;
+    private final Semaphore background;
+    private final ComputePool computePool;
+    private final Timer waitTimer;
+
+    private final AtomicInteger waiting = new AtomicInteger();
+    private final AtomicLong borrowCount = new AtomicLong();
+    private final AtomicLong timeoutCount = new AtomicLong();
+    private final AtomicLong rejectedCount = new AtomicLong();
+    private final AtomicLong totalWaitNanos = new AtomicLong();
+
+    public LanguageToolPool(ComputePool computePool,
+                            MeterRegistry meterRegistry,
+                            @Value("${grammar.pool.size:0}") int size,
+                            @Value("${grammar.pool.borrow-timeout-ms:5000}") long borrowTimeoutMillis,
+                            @Value("${grammar.pool.max-waiting:32}") int maxWaiting,
+                            @Value("${grammar.pool.background-max:0}") int backgroundMax) {
+        this.computePool = computePool;
+        this.size = size > 0 ? size : Runtime.getRuntime().availableProcessors();
+        this.borrowTimeoutMillis = borrowTimeoutMillis;
+        this.idle = new ArrayBlockingQueue<>(this.size);
+        this.admission = new Semaphore(this.size + Math.max(0, maxWaiting));
+        // By default background checks leave one instance to requests (unless there is only one)
+        this.backgroundLimit = backgroundMax > 0 ? Math.min(backgroundMax, this.size) : Math.max(1, this.size - 1);
+        this.background = new Semaphore(backgroundLimit, true);
+
+        this.waitTimer = Timer.builder("grammar.pool.wait")
+                .description("Time spent waiting for a pooled LanguageTool instance")
+                .register(meterRegistry);
+        Gauge.builder("grammar.pool.in.use", idle, queue -> this.size - queue.size())
+                .description("LanguageTool instances currently borrowed")
+                .register(meterRegistry);
+        Gauge.builder("grammar.pool.waiting", waiting, AtomicInteger::get)
+                .description("Grammar checks waiting for a LanguageTool instance")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Create and warm up all pooled instances
+     */
+    @PostConstruct
+    public void warmUp() throws IOException {
+        long start = System.nanoTime();
+        for (int i = 0; i < size; i++) {
+            JLanguageTool languageTool = new JLanguageTool(new AmericanEnglish());
+            languageTool.check(WARM_UP_TEXT);
+            idle.add(languageTool);
+        }
+        log.info("LanguageTool pool warmed up with {} instance(s) in {} ms",
+                size, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
+    /**
+     * Run a task with an exclusively borrowed LanguageTool instance.
+     * Waiting for an instance happens on the calling thread, the check itself on the compute pool.
+     */
+    public <T> T execute(LanguageToolTask<T> task) throws IOException {
+        if (!admission.tryAcquire()) {
+            rejectedCount.incrementAndGet();
+            throw new ServiceBusyException(HttpStatus.TOO_MANY_REQUESTS,
+                    "Too many grammar checks in progress, please retry later");
+        }
+        try {
+            return run(borrow(borrowTimeoutMillis), task);
+        } finally {
+            admission.release();
+        }
+    }
+
+    /**
+     * Run a task for a background check, e.g. an accepted grammar job or the lint. Background checks are queued
+     * already, so they wait for an instance as long as it takes instead of being rejected or timing out.
+     * Together they hold at most {@link #getBackgroundLimit()} instances, so requests are not starved.
+     */
+    public <T> T executeInBackground(LanguageToolTask<T> task) throws IOException {
+        try {
+            background.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ServiceBusyException(HttpStatus.SERVICE_UNAVAILABLE, "Interrupted while waiting for a grammar checker");
+        }
+        try {
+            return run(borrow(-1), task);
+        } finally {
+            background.release();
+        }
+    }
+
+    /**
+     * Get a snapshot of the pool metrics
+     */
+    public GrammarPoolStats getStats() {
+        long borrows = borrowCount.get();
+        int available = idle.size();
+        return new GrammarPoolStats(
+                size,
+                available,
+                size - available,
+                waiting.get(),
+                borrows,
+                timeoutCount.get(),
+                rejectedCount.get(),
+                borrows == 0 ? 0.0 : totalWaitNanos.get() / (double) borrows / 1_000_000.0
+        );
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * Number of instances background checks may hold at the same time
+     */
+    public int getBackgroundLimit() {
+        return backgroundLimit;
+    }
+
+    private <T> T run(JLanguageTool languageTool, LanguageToolTask<T> task) throws IOException {
+        try {
+            return computePool.compute(() -> task.apply(languageTool));
+        } finally {
+            idle.add(languageTool);
+        }
+    }
+
+    // A negative timeout waits until an instance is free
+    private JLanguageTool borrow(long timeoutMillis) {
+        long start = System.nanoTime();
+        JLanguageTool languageTool;
+        waiting.incrementAndGet();
+        try {
+            languageTool = timeoutMillis < 0 ? idle.take() : idle.poll(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ServiceBusyException(HttpStatus.SERVICE_UNAVAILABLE, "Interrupted while waiting for a grammar checker");
+        } finally {
+            waiting.decrementAndGet();
+        }
+        if (languageTool == null) {
+            timeoutCount.incrementAndGet();
+            throw new ServiceBusyException(HttpStatus.SERVICE_UNAVAILABLE,
+                    "All grammar checkers are busy, please retry later");
+        }
+        long waitNanos = System.nanoTime() - start;
+        borrowCount.incrementAndGet();
+        totalWaitNanos.addAndGet(waitNanos);
+        waitTimer.record(waitNanos, TimeUnit.NANOSECONDS);
+        return languageTool;
+    }
+
+    @FunctionalInterface
+    public interface LanguageToolTask<T> {
+        T apply(JLanguageTool languageTool) throws IOException;
+    }
+}
@@ -0,0 +1,188 @@
+package com.markdown.service;
+
+import org.commonmark.node.Code;
+import org.commonmark.node.FencedCodeBlock;
+import org.commonmark.node.Heading;
+import org.commonmark.node.HtmlBlock;
+import org.commonmark.node.HtmlInline;
+import org.commonmark.node.Image;
+import org.commonmark.node.IndentedCodeBlock;
+import org.commonmark.node.Link;
+import org.commonmark.node.LinkReferenceDefinition;
+import org.commonmark.node.Node;
+import org.commonmark.node.Paragraph;
+import org.commonmark.node.SourceSpan;
+import org.commonmark.node.Text;
+import org.commonmark.node.ThematicBreak;
+import org.languagetool.markup.AnnotatedText;
+import org.languagetool.markup.AnnotatedTextBuilder;
+
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Extracts the prose of a markdown block for grammar checking.
+ * Only text nodes reach LanguageTool as text; everything else in the source (syntax, code, HTML, link and
+ * image targets) is passed as markup, so match positions still refer to the markdown source.
+ */
+final class MarkdownProse {
+
+    /**
+     * Stands in for inline code and autolinks so the surrounding sentence stays well-formed; a number
+     * triggers neither the a/an nor the sentence capitalization rules
+     */
+    private static final String PLACEHOLDER = "0";
+
+    // Delimiter row of a GFM table, e.g. "| --- | :-: |"
+    private static final Pattern TABLE_DELIMITER_ROW =
+            Pattern.compile("^\\s*\\|?\\s*:?-+:?\\s*(\\|\\s*:?-+:?\\s*)*\\|?\\s*$");
+
+    private final String markdown;
+    private final int[] lineStarts;
+    private final int end;
+    private final AnnotatedTextBuilder builder = new AnnotatedTextBuilder();
+    private int position;
+    private boolean hasText;
+    private boolean blockStart;
+
+    private MarkdownProse(String markdown, int[] lineStarts, int start, int end) {
+        this.markdown = markdown;
+        this.lineStarts = lineStarts;
+        this.position = start;
+        this.end = end;
+    }
+
+    /**
+     * Whether a top-level block can contain prose worth checking
+     */
+    static boolean hasProse(Node block, String markdown, int[] lineStarts) {
+        return !isSkipped(block) && !isTable(block, markdown, lineStarts);
+    }
+
+    /**
+     * Annotate the source range [start, end) holding the given block, so that match positions are
+     * relative to start
+     */
+    static AnnotatedText annotate(Node block, String markdown, int[] lineStarts, int start, int end) {
+        MarkdownProse prose = new MarkdownProse(markdown, lineStarts, start, end);
+        prose.visit(block);
+        prose.markupUntil(end);
+        return prose.builder.build();
+    }
+
+    /**
+     * Offset just after the last source character of a node, or -1 if it has no source spans
+     */
+    static int endOffset(Node node, int[] lineStarts) {
+        List<SourceSpan> spans = node.getSourceSpans();
+        if (spans.isEmpty()) {
+            return -1;
+        }
+        SourceSpan last = spans.get(spans.size() - 1);
+        return lineStarts[last.getLineIndex()] + last.getColumnIndex() + last.getLength();
+    }
+
+    private void visit(Node node) {
+        if (isSkipped(node) || node instanceof Image || isTable(node, markdown, lineStarts)) {
+            return;
+        }
+        if (node instanceof Text text) {
+            addText(text);
+            return;
+        }
+        if (node instanceof Code || node instanceof HtmlInline || isAutolink(node)) {
+            int start = startOffset(node);
+            int stop = endOffset(node, lineStarts);
+            if (start >= position && stop > start) {
+                markupUntil(start);
+                builder.addMarkup(markdown.substring(start, stop), node instanceof HtmlInline ? "" : PLACEHOLDER);
+                position = stop;
+            }
+            return;
+        }
+
+        if (node instanceof Paragraph || node instanceof Heading) {
+            blockStart = true;
+        }
+        for (Node child = node.getFirstChild(); child != null; child = child.getNext()) {
+            visit(child);
+        }
+    }
+
+    private void addText(Text text) {
+        int start = startOffset(text);
+        int stop = endOffset(text, lineStarts);
+        if (start < position || stop <= start || stop > end) {
+            return;
+        }
+
+        markupUntil(start);
+        String source = markdown.substring(start, stop);
+        if (source.equals(text.getLiteral())) {
+            builder.addText(source);
+        } else {
+            // Backslash escapes and entity references read as the characters they stand for
+            builder.addMarkup(source, text.getLiteral());
+        }
+        position = stop;
+        hasText = true;
+    }
+
+    /**
+     * Pass the source up to an offset as markup: a paragraph break between blocks, a line break
+     * inside a block and nothing otherwise
+     */
+    private void markupUntil(int offset) {
+        boolean paragraphBreak = blockStart && hasText;
+        blockStart = false;
+        if (offset <= position) {
+            return;
+        }
+        String markup = markdown.substring(position, offset);
+        String interpretAs;
+        if (paragraphBreak) {
+            interpretAs = "\n\n";
+        } else if (markup.indexOf('\n') >= 0 || markup.indexOf('\r') >= 0) {
+            interpretAs = "\n";
+        } else {
+            interpretAs = "";
+        }
+        builder.addMarkup(markup, interpretAs);
+        position = offset;
+    }
+
+    private int startOffset(Node node) {
+        List<SourceSpan> spans = node.getSourceSpans();
+        if (spans.isEmpty()) {
+            return -1;
+        }
+        SourceSpan first = spans.get(0);
+        return lineStarts[first.getLineIndex()] + first.getColumnIndex();
+    }
+
+    private boolean isAutolink(Node node) {
+        int start = startOffset(node);
+        return node instanceof Link && start >= 0 && markdown.charAt(start) == '<';
+    }
+
+    private static boolean isSkipped(Node node) {
+        return node instanceof FencedCodeBlock
+                || node instanceof IndentedCodeBlock
+                || node instanceof HtmlBlock
+                || node instanceof ThematicBreak
+                || node instanceof LinkReferenceDefinition;
+    }
+
+    /**
+     * Tables are not parsed as such, so recognize a paragraph whose second line is a table delimiter row
+     */
+    private static boolean isTable(Node node, String markdown, int[] lineStarts) {
+        if (!(node instanceof Paragraph) || node.getSourceSpans().size() < 2) {
+            return false;
+        }
+        SourceSpan second = node.getSourceSpans().get(1);
+        int start = lineStarts[second.getLineIndex()] + second.getColumnIndex();
+        String line = markdown.substring(start, start + second.getLength());
+        return line.contains("-") && line.contains("|") && TABLE_DELIMITER_ROW.matcher(line).matches();
+    }
+}
@@ -1,19 +1,111 @@
 package com.markdown.service;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.markdown.dto.NoteHeading;
+import com.markdown.dto.RenderCacheStats;
+import com.markdown.util.ContentHash;
+import com.markdown.util.SourceLines;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.commonmark.node.Heading;
+import org.commonmark.node.LinkReferenceDefinition;
 import org.commonmark.node.Node;
+import org.commonmark.node.SourceSpan;
+import org.commonmark.parser.IncludeSourceSpans;
+import org.commonmark.parser.InlineParserFactory;
 import org.commonmark.parser.Parser;
 import org.commonmark.renderer.html.HtmlRenderer;
+import org.commonmark.renderer.text.TextContentRenderer;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Pattern;
+
 @Service
 public class MarkdownService {
 
+    /**
+     * Version of the parser/renderer configuration; bump it whenever the produced HTML changes
+     * so that persisted renders are refreshed.
+     */
+    public static final int RENDERER_VERSION = 1;
+
+    private static final Pattern ANCHOR_PUNCTUATION = Pattern.compile("[^\\p{L}\\p{N}\\s_-]");
+    private static final Pattern ANCHOR_SPACES = Pattern.compile("\\s+");
+
+    // Block structure only: skipping inline parsing makes splitting a large document into blocks cheap
+    private static final InlineParserFactory NO_INLINES = context -> (lines, block) -> {
+    };
+
     private final Parser parser;
+    private final Parser blockParser;
+    private final Parser sourceParser;
     private final HtmlRenderer renderer;
+    private final TextContentRenderer textRenderer;
+    private final Cache<String, String> renderCache;
+    private final Cache<String, String> blockCache;
+    private final int incrementalMinLength;
+    private final ComputePool computePool;
+    private final MeterRegistry meterRegistry;
+    private final Timer cacheHitTimer;
+    private final Timer cacheMissTimer;
+    private final Timer streamTimer;
+    private final DistributionSummary htmlSize;
 
-    public MarkdownService() {
+    public MarkdownService(ComputePool computePool,
+                           MeterRegistry meterRegistry,
+                           @Value("${markdown.render-cache.max-entries:10000}") long maxEntries,
+                           @Value("${markdown.render-cache.max-bytes:67108864}") long maxBytes,
+                           @Value("${markdown.block-cache.max-bytes:33554432}") long maxBlockBytes,
+                           @Value("${markdown.incremental.min-length:65536}") int incrementalMinLength) {
+        this.computePool = computePool;
+        this.meterRegistry = meterRegistry;
+        this.cacheHitTimer = renderTimer("hit", meterRegistry);
+        this.cacheMissTimer = renderTimer("miss", meterRegistry);
+        this.streamTimer = Timer.builder("markdown.render.stream")
+                .description("Time to parse markdown and write its HTML to a response, including the writes")
+                .register(meterRegistry);
+        this.htmlSize = DistributionSummary.builder("markdown.html.size")
+                .description("Size of rendered HTML")
+                .baseUnit("characters")
+                .register(meterRegistry);
         this.parser = Parser.builder().build();
+        this.blockParser = Parser.builder()
+                .includeSourceSpans(IncludeSourceSpans.BLOCKS)
+                .inlineParserFactory(NO_INLINES)
+                .build();
+        this.sourceParser = Parser.builder()
+                .includeSourceSpans(IncludeSourceSpans.BLOCKS_AND_INLINES)
+                .build();
         this.renderer = HtmlRenderer.builder().build();
+        this.textRenderer = TextContentRenderer.builder().build();
+        this.incrementalMinLength = incrementalMinLength;
+        this.blockCache = Caffeine.newBuilder()
+                .maximumWeight(maxBlockBytes)
+                .weigher((String key, String html) -> (int) Math.min(Integer.MAX_VALUE, estimateBytes(key) + estimateBytes(html)))
+                .build();
+
+        // Every entry weighs at least maxBytes / maxEntries, so the byte budget also caps the entry count
+        long minEntryWeight = Math.max(1, maxBytes / Math.max(1, maxEntries));
+        this.renderCache = Caffeine.newBuilder()
+                .maximumWeight(maxBytes)
+                .weigher((String key, String html) -> (int) Math.min(Integer.MAX_VALUE,
+                        Math.max(minEntryWeight, estimateBytes(key) + estimateBytes(html))))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, renderCache, "markdown.render");
     }
 
     /**
@@ -24,8 +116,131 @@ public class MarkdownService {
             return "";
         }
 
-        Node document = parser.parse(markdown);
-        return renderer.render(document);
+        // Not Cache.get(key, loader): the loader would render inside a map lock, pinning a virtual thread
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String key = ContentHash.sha256(markdown);
+        String html = renderCache.getIfPresent(key);
+        if (html != null) {
+            sample.stop(cacheHitTimer);
+            return html;
+        }
+
+        html = computePool.computeUnchecked(() ->
+                markdown.length() >= incrementalMinLength ? renderByBlocks(markdown) : render(markdown));
+        renderCache.put(key, html);
+        sample.stop(cacheMissTimer);
+        htmlSize.record(html.length());
+        return html;
+    }
+
+    /**
+     * Write the HTML of markdown text to a writer without building it as a String.
+     * Cached HTML is copied as is; otherwise the document is parsed and rendered straight into the writer,
+     * so memory use follows the size of the syntax tree rather than of the output. Streamed renders are not cached.
+     */
+    public void writeHtml(String markdown, Appendable out) throws IOException {
+        if (markdown == null || markdown.trim().isEmpty()) {
+            return;
+        }
+
+        String html = renderCache.getIfPresent(ContentHash.sha256(markdown));
+        if (html != null) {
+            out.append(html);
+            return;
+        }
+
+        // Only parsing is CPU-bound; rendering mostly waits on the client, so it stays on the calling thread
+        Timer.Sample sample = Timer.start(meterRegistry);
+        Node document = computePool.computeUnchecked(() -> parser.parse(markdown));
+        renderer.render(document, out);
+        sample.stop(streamTimer);
+    }
+
+    /**
+     * Convert markdown text to plain text, dropping all markdown syntax
+     */
+    public String convertToPlainText(String markdown) {
+        if (markdown == null || markdown.trim().isEmpty()) {
+            return "";
+        }
+
+        return computePool.computeUnchecked(() -> textRenderer.render(parser.parse(markdown)));
+    }
+
+    /**
+     * Parse markdown into a document whose block and inline nodes carry their source positions
+     */
+    public Node parseWithSourceSpans(String markdown) {
+        return sourceParser.parse(markdown);
+    }
+
+    /**
+     * Extract the top-level headings of markdown, each with the byte range of its section:
+     * from the heading up to the next heading of the same or a higher level.
+     */
+    public List<NoteHeading> extractOutline(String markdown) {
+        if (markdown == null || markdown.isEmpty()) {
+            return List.of();
+        }
+
+        return computePool.computeUnchecked(() -> {
+            Node document = sourceParser.parse(markdown);
+            int[] lineStarts = SourceLines.lineStarts(markdown);
+            List<NoteHeading> headings = new ArrayList<>();
+            Map<String, Integer> anchors = new HashMap<>();
+            // Sections still open, innermost last
+            Deque<NoteHeading> open = new ArrayDeque<>();
+            int offset = 0;
+            long byteOffset = 0;
+
+            for (Node block = document.getFirstChild(); block != null; block = block.getNext()) {
+                if (!(block instanceof Heading heading) || heading.getSourceSpans().isEmpty()) {
+                    continue;
+                }
+                int start = lineStarts[heading.getSourceSpans().get(0).getLineIndex()];
+                byteOffset += SourceLines.utf8Length(markdown, offset, start);
+                offset = start;
+
+                while (!open.isEmpty() && open.peekLast().getLevel() >= heading.getLevel()) {
+                    open.removeLast().setEnd(byteOffset);
+                }
+                String text = textRenderer.render(heading).trim();
+                NoteHeading entry = new NoteHeading(heading.getLevel(), text, uniqueAnchor(text, anchors), byteOffset, 0);
+                headings.add(entry);
+                open.addLast(entry);
+            }
+
+            long length = byteOffset + SourceLines.utf8Length(markdown, offset, markdown.length());
+            open.forEach(entry -> entry.setEnd(length));
+            return headings;
+        });
+    }
+
+    /**
+     * Drop the cached HTML of content that is no longer stored, given its {@link ContentHash#sha256} hash
+     */
+    public void evictFromCache(String contentHash) {
+        if (contentHash != null) {
+            renderCache.invalidate(contentHash);
+        }
+    }
+
+    /**
+     * Get render cache statistics
+     */
+    public RenderCacheStats getCacheStats() {
+        CacheStats stats = renderCache.stats();
+        long weightedBytes = renderCache.policy().eviction()
+                .map(eviction -> eviction.weightedSize().orElse(0L))
+                .orElse(0L);
+        return new RenderCacheStats(
+                renderCache.estimatedSize(),
+                weightedBytes,
+                stats.hitCount(),
+                stats.missCount(),
+                stats.hitRate(),
+                stats.evictionCount()
+        );
     }
 
     /**
@@ -39,5 +254,75 @@ public class MarkdownService {
             return false;
         }
     }
-}
 
+    private String render(String markdown) {
+        Node document = parser.parse(markdown);
+        return renderer.render(document);
+    }
+
+    /**
+     * Render a large document block by block, reusing the cached HTML of unchanged top-level blocks.
+     * Each top-level block renders the same on its own as inside the document, so the concatenated
+     * fragments are identical to a full render. Link reference definitions are the exception, as they
+     * affect links in other blocks; documents containing them are rendered in full.
+     */
+    private String renderByBlocks(String markdown) {
+        Node document = blockParser.parse(markdown);
+        if (containsLinkReferenceDefinition(document)) {
+            return render(markdown);
+        }
+
+        int[] lineStarts = SourceLines.lineStarts(markdown);
+        StringBuilder html = new StringBuilder(markdown.length() + markdown.length() / 4);
+        for (Node block = document.getFirstChild(); block != null; block = block.getNext()) {
+            Integer start = firstLine(block, lineStarts);
+            Integer end = block.getNext() == null ? Integer.valueOf(markdown.length()) : firstLine(block.getNext(), lineStarts);
+            if (start == null || end == null) {
+                return render(markdown);
+            }
+
+            // Everything up to the next block, including blank lines that unclosed fences or HTML blocks swallow
+            String source = markdown.substring(start, end);
+            html.append(blockCache.get(ContentHash.sha256(source), key -> render(source)));
+        }
+        return html.toString();
+    }
+
+    private static Integer firstLine(Node block, int[] lineStarts) {
+        List<SourceSpan> spans = block.getSourceSpans();
+        return spans.isEmpty() ? null : lineStarts[spans.get(0).getLineIndex()];
+    }
+
+    private static boolean containsLinkReferenceDefinition(Node node) {
+        for (Node child = node.getFirstChild(); child != null; child = child.getNext()) {
+            if (child instanceof LinkReferenceDefinition || containsLinkReferenceDefinition(child)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static Timer renderTimer(String cache, MeterRegistry meterRegistry) {
+        return Timer.builder("markdown.render")
+                .description("Time to convert markdown to HTML, by render cache outcome")
+                .tag("cache", cache)
+                .register(meterRegistry);
+    }
+
+    private static long estimateBytes(String text) {
+        return 40L + 2L * text.length();
+    }
+
+    /**
+     * GitHub-style anchor: lowercase, punctuation dropped, spaces turned into hyphens; repeats get a -1, -2... suffix
+     */
+    private static String uniqueAnchor(String text, Map<String, Integer> anchors) {
+        String words = ANCHOR_PUNCTUATION.matcher(text.toLowerCase(Locale.ROOT)).replaceAll("").trim();
+        String anchor = ANCHOR_SPACES.matcher(words).replaceAll("-");
+        if (anchor.isEmpty()) {
+            anchor = "section";
+        }
+        int count = anchors.merge(anchor, 1, Integer::sum);
+        return count == 1 ? anchor : anchor + "-" + (count - 1);
+    }
+}
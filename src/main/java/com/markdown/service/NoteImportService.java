@@ -0,0 +1,160 @@
+package com.markdown.service;
+
+import com.markdown.dto.ImportFailure;
+import com.markdown.dto.ImportReport;
+import com.markdown.entity.Note;
+import com.markdown.entity.NoteContent;
+import com.markdown.util.TextDecoding;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.compress.archivers.ArchiveEntry;
+import org.apache.commons.compress.archivers.ArchiveInputStream;
+import org.apache.commons.compress.archivers.tar.TarArchiveInputStream;
+import org.apache.commons.compress.archivers.zip.ZipArchiveInputStream;
+import org.apache.commons.compress.compressors.gzip.GzipCompressorInputStream;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Imports markdown files from zip or tar(.gz) archives, streaming entries and saving them in batches.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class NoteImportService {
+
+    private final NoteService noteService;
+
+    @Value("${notes.import.batch-size:50}")
+    private int batchSize;
+
+    @Value("${notes.import.max-entry-size:10485760}")
+    private long maxEntrySize;
+
+    /**
+     * Import every .md entry of an uploaded archive as a note
+     */
+    public ImportReport importArchive(MultipartFile file) throws IOException {
+        if (file.isEmpty()) {
+            throw new IllegalArgumentException("File is empty");
+        }
+
+        String archiveName = file.getOriginalFilename();
+        ImportReport report = new ImportReport();
+        report.setArchive(archiveName);
+        long start = System.currentTimeMillis();
+
+        try (ArchiveInputStream<?> archive = openArchive(archiveName, file.getInputStream())) {
+            List<ImportedEntry> batch = new ArrayList<>(batchSize);
+
+            ArchiveEntry entry;
+            while ((entry = archive.getNextEntry()) != null) {
+                if (entry.isDirectory()) {
+                    continue;
+                }
+                report.setEntries(report.getEntries() + 1);
+
+                String entryName = entry.getName();
+                if (!entryName.toLowerCase(Locale.ROOT).endsWith(".md")) {
+                    report.setSkipped(report.getSkipped() + 1);
+                    continue;
+                }
+                if (!archive.canReadEntryData(entry)) {
+                    addFailure(report, entryName, "Unsupported entry compression or encryption");
+                    continue;
+                }
+
+                try {
+                    String content = TextDecoding.readUtf8(archive, maxEntrySize);
+                    batch.add(new ImportedEntry(entryName, content));
+                } catch (IllegalArgumentException e) {
+                    addFailure(report, entryName, e.getMessage());
+                    continue;
+                }
+
+                if (batch.size() >= batchSize) {
+                    flushBatch(report, batch);
+                }
+            }
+            flushBatch(report, batch);
+        }
+
+        report.setDurationMillis(System.currentTimeMillis() - start);
+        log.info("Imported {} note(s) from {} ({} failed, {} skipped) in {} ms", report.getImported(), archiveName,
+                report.getFailed(), report.getSkipped(), report.getDurationMillis());
+        return report;
+    }
+
+    /**
+     * Save a batch of entries. When the batch fails, its entries are saved one at a time, so that only the
+     * entries that fail on their own are reported.
+     */
+    private void flushBatch(ImportReport report, List<ImportedEntry> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        try {
+            noteService.saveBatch(batch.stream().map(ImportedEntry::toNote).toList());
+            report.setImported(report.getImported() + batch.size());
+        } catch (RuntimeException e) {
+            log.warn("Failed to save a batch of {} imported note(s), saving them one at a time: {}",
+                    batch.size(), e.getMessage());
+            for (ImportedEntry entry : batch) {
+                try {
+                    // A fresh note, the failed attempt may have left ids and versions on the previous one
+                    noteService.saveBatch(List.of(entry.toNote()));
+                    report.setImported(report.getImported() + 1);
+                } catch (RuntimeException entryFailure) {
+                    addFailure(report, entry.name(), "Insert failed: " + entryFailure.getMessage());
+                }
+            }
+        }
+
+        report.setBatches(report.getBatches() + 1);
+        log.info("Import of {} in progress: {} of {} entries imported", report.getArchive(),
+                report.getImported(), report.getEntries());
+        batch.clear();
+    }
+
+    private ArchiveInputStream<?> openArchive(String archiveName, InputStream inputStream) throws IOException {
+        String name = archiveName == null ? "" : archiveName.toLowerCase(Locale.ROOT);
+        InputStream buffered = new BufferedInputStream(inputStream);
+
+        if (name.endsWith(".zip")) {
+            return new ZipArchiveInputStream(buffered);
+        }
+        if (name.endsWith(".tar.gz") || name.endsWith(".tgz")) {
+            return new TarArchiveInputStream(new GzipCompressorInputStream(buffered));
+        }
+        if (name.endsWith(".tar")) {
+            return new TarArchiveInputStream(buffered);
+        }
+        throw new IllegalArgumentException("Only .zip, .tar, .tar.gz and .tgz archives are allowed");
+    }
+
+    private void addFailure(ImportReport report, String entryName, String reason) {
+        report.setFailed(report.getFailed() + 1);
+        report.getFailures().add(new ImportFailure(entryName, reason));
+    }
+
+    private record ImportedEntry(String name, String content) {
+
+        Note toNote() {
+            String fileName = name.substring(name.lastIndexOf('/') + 1);
+            Note note = new Note();
+            note.setTitle(fileName.substring(0, fileName.length() - ".md".length()));
+            note.setBody(new NoteContent(content));
+            note.setFileName(fileName);
+            return note;
+        }
+    }
+}
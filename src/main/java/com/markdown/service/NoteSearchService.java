@@ -0,0 +1,277 @@
+package com.markdown.service;
+
+import com.markdown.dto.NoteSearchHit;
+import com.markdown.dto.NoteSearchResponse;
+import com.markdown.entity.Note;
+import com.markdown.repository.NoteRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.FieldType;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.index.IndexOptions;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.queryparser.classic.MultiFieldQueryParser;
+import org.apache.lucene.queryparser.classic.ParseException;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.SearcherManager;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.search.uhighlight.DefaultPassageFormatter;
+import org.apache.lucene.search.uhighlight.UnifiedHighlighter;
+import org.apache.lucene.store.FSDirectory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * Embedded Lucene index over note titles and the plain text of their markdown content.
+ * Index changes are applied after the surrounding transaction commits.
+ */
+@Slf4j
+@Service
+public class NoteSearchService {
+
+    private static final String FIELD_ID = "id";
+    private static final String FIELD_TITLE = "title";
+    private static final String FIELD_BODY = "body";
+    private static final int MAX_HIGHLIGHT_LENGTH = 100_000;
+    private static final FieldType BODY_FIELD_TYPE = new FieldType(TextField.TYPE_STORED);
+
+    static {
+        // Offsets in the postings let the highlighter find passages without re-analyzing the body
+        BODY_FIELD_TYPE.setIndexOptions(IndexOptions.DOCS_AND_FREQS_AND_POSITIONS_AND_OFFSETS);
+        BODY_FIELD_TYPE.freeze();
+    }
+
+    private final MarkdownService markdownService;
+    private final NoteRepository noteRepository;
+    private final TransactionTemplate readOnlyTransaction;
+    private final Analyzer analyzer = new StandardAnalyzer();
+    private final Path indexPath;
+    private final boolean rebuildOnStartup;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private FSDirectory directory;
+    private IndexWriter indexWriter;
+    private SearcherManager searcherManager;
+
+    public NoteSearchService(MarkdownService markdownService,
+                             NoteRepository noteRepository,
+                             PlatformTransactionManager transactionManager,
+                             @Value("${search.index.path:./data/search-index}") String indexPath,
+                             @Value("${search.index.rebuild-on-startup:false}") boolean rebuildOnStartup) {
+        this.markdownService = markdownService;
+        this.noteRepository = noteRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.indexPath = Path.of(indexPath);
+        this.rebuildOnStartup = rebuildOnStartup;
+    }
+
+    @PostConstruct
+    public void open() throws IOException {
+        directory = FSDirectory.open(indexPath);
+        IndexWriterConfig config = new IndexWriterConfig(analyzer)
+                .setOpenMode(IndexWriterConfig.OpenMode.CREATE_OR_APPEND);
+        indexWriter = new IndexWriter(directory, config);
+        searcherManager = new SearcherManager(indexWriter, null);
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        searcherManager.close();
+        indexWriter.close();
+        directory.close();
+    }
+
+    /**
+     * Rebuild the index from the database when it is empty or a rebuild is requested
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildIfNeeded() throws IOException {
+        if (rebuildOnStartup || (indexWriter.getDocStats().numDocs == 0 && noteRepository.count() > 0)) {
+            rebuild();
+        }
+    }
+
+    /**
+     * Drop the index and re-index every stored note
+     */
+    public void rebuild() throws IOException {
+        long start = System.currentTimeMillis();
+        indexWriter.deleteAll();
+
+        long indexed = readOnlyTransaction.execute(status -> {
+            long count = 0;
+            try (Stream<Note> notes = noteRepository.streamAllByOrderById()) {
+                for (Note note : (Iterable<Note>) notes::iterator) {
+                    indexWriter.addDocument(toDocument(note));
+                    entityManager.detach(note);
+                    count++;
+                }
+            } catch (IOException e) {
+                throw new RuntimeException("Error rebuilding search index: " + e.getMessage(), e);
+            }
+            return count;
+        });
+
+        indexWriter.commit();
+        searcherManager.maybeRefresh();
+        log.info("Rebuilt search index with {} note(s) in {} ms", indexed, System.currentTimeMillis() - start);
+    }
+
+    /**
+     * Add or replace a note in the index
+     */
+    public void index(Note note) {
+        indexAll(List.of(note));
+    }
+
+    /**
+     * Add or replace several notes in the index
+     */
+    public void indexAll(List<Note> notes) {
+        // Build the documents now, while the entities are still attached
+        List<Document> documents = notes.stream().map(this::toDocument).toList();
+        afterCommit(() -> {
+            for (Document document : documents) {
+                indexWriter.updateDocument(new Term(FIELD_ID, document.get(FIELD_ID)), document);
+            }
+        });
+    }
+
+    /**
+     * Remove a note from the index
+     */
+    public void remove(Long id) {
+        afterCommit(() -> indexWriter.deleteDocuments(new Term(FIELD_ID, String.valueOf(id))));
+    }
+
+    /**
+     * Search titles and content, returning one page of ranked hits with highlighted snippets
+     */
+    public NoteSearchResponse search(String queryText, int page, int size) {
+        if (queryText == null || queryText.isBlank()) {
+            throw new IllegalArgumentException("Search query must not be empty");
+        }
+        if (page < 0 || size < 1) {
+            throw new IllegalArgumentException("Page must be >= 0 and size must be >= 1");
+        }
+
+        Query query = parseQuery(queryText);
+        try {
+            IndexSearcher searcher = searcherManager.acquire();
+            try {
+                TopDocs topDocs = searcher.search(query, (page + 1) * size);
+                int from = Math.min(page * size, topDocs.scoreDocs.length);
+                ScoreDoc[] pageDocs = Arrays.copyOfRange(topDocs.scoreDocs, from, topDocs.scoreDocs.length);
+
+                UnifiedHighlighter highlighter = UnifiedHighlighter.builder(searcher, analyzer)
+                        .withFormatter(new DefaultPassageFormatter("<mark>", "</mark>", "... ", true))
+                        .withMaxLength(MAX_HIGHLIGHT_LENGTH)
+                        .build();
+                String[] snippets = highlighter.highlight(FIELD_BODY, query, new TopDocs(topDocs.totalHits, pageDocs), 1);
+
+                List<NoteSearchHit> hits = new ArrayList<>(pageDocs.length);
+                for (int i = 0; i < pageDocs.length; i++) {
+                    Document document = searcher.storedFields().document(pageDocs[i].doc, Set.of(FIELD_ID, FIELD_TITLE));
+                    hits.add(new NoteSearchHit(
+                            Long.valueOf(document.get(FIELD_ID)),
+                            document.get(FIELD_TITLE),
+                            pageDocs[i].score,
+                            snippets[i]
+                    ));
+                }
+                return new NoteSearchResponse(queryText, searcher.count(query), page, size, hits);
+            } finally {
+                searcherManager.release(searcher);
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Error searching notes: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Periodically make index changes durable
+     */
+    @Scheduled(fixedDelayString = "${search.index.commit-interval-ms:30000}")
+    public void commit() throws IOException {
+        if (indexWriter.hasUncommittedChanges()) {
+            indexWriter.commit();
+        }
+    }
+
+    private Query parseQuery(String queryText) {
+        MultiFieldQueryParser parser = new MultiFieldQueryParser(
+                new String[]{FIELD_TITLE, FIELD_BODY}, analyzer, Map.of(FIELD_TITLE, 2.0f, FIELD_BODY, 1.0f));
+        try {
+            return parser.parse(queryText);
+        } catch (ParseException e) {
+            throw new IllegalArgumentException("Invalid search query: " + queryText);
+        }
+    }
+
+    private Document toDocument(Note note) {
+        Document document = new Document();
+        document.add(new StringField(FIELD_ID, String.valueOf(note.getId()), Field.Store.YES));
+        document.add(new TextField(FIELD_TITLE, note.getTitle(), Field.Store.YES));
+        document.add(new Field(FIELD_BODY, markdownService.convertToPlainText(note.getBody().getContent()), BODY_FIELD_TYPE));
+        return document;
+    }
+
+    private void afterCommit(IndexUpdate update) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            applyUpdate(update);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                applyUpdate(update);
+            }
+        });
+    }
+
+    private void applyUpdate(IndexUpdate update) {
+        try {
+            update.apply();
+            searcherManager.maybeRefresh();
+        } catch (IOException e) {
+            // The database change is already committed; a rebuild brings the index back in line
+            log.error("Error updating search index: {}", e.getMessage(), e);
+        }
+    }
+
+    @FunctionalInterface
+    private interface IndexUpdate {
+        void apply() throws IOException;
+    }
+}
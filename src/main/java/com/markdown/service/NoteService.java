@@ -1,25 +1,126 @@
 package com.markdown.service;
 
+import com.markdown.dto.ContentOutline;
+import com.markdown.dto.ContentReference;
+import com.markdown.dto.NoteHeading;
+import com.markdown.dto.NoteOutline;
+import com.markdown.dto.NotePageResponse;
+import com.markdown.dto.NotePatchRequest;
 import com.markdown.dto.NoteRequest;
 import com.markdown.dto.NoteResponse;
+import com.markdown.dto.NoteSummary;
+import com.markdown.dto.NoteVersion;
+import com.markdown.dto.RenderBatchRequest;
+import com.markdown.dto.RenderedNote;
+import com.markdown.dto.TextEdit;
 import com.markdown.entity.Note;
+import com.markdown.entity.NoteContent;
+import com.markdown.exception.NoteConflictException;
 import com.markdown.exception.ResourceNotFoundException;
+import com.markdown.repository.NoteContentRepository;
 import com.markdown.repository.NoteRepository;
-import lombok.RequiredArgsConstructor;
+import com.markdown.util.ContentHash;
+import com.markdown.util.TextDecoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.unit.DataSize;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.nio.charset.StandardCharsets;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
+import java.util.Objects;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
 
+@Slf4j
 @Service
-@RequiredArgsConstructor
 public class NoteService {
 
     private final NoteRepository noteRepository;
+    private final NoteContentRepository noteContentRepository;
+    private final MarkdownService markdownService;
+    private final ComputePool computePool;
+    private final NoteSearchService noteSearchService;
+    private final ObjectMapper objectMapper;
+    private final DistributionSummary contentSize;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private static final char CURSOR_SEPARATOR = '|';
+    private static final int CONTENT_LOCK_STRIPES = 64;
+
+    private final ReentrantLock[] contentLocks = newContentLocks();
+
+    @Value("${markdown.render-on-write:true}")
+    private boolean renderOnWrite;
+
+    @Value("${notes.page.default-size:20}")
+    private int defaultPageSize;
+
+    @Value("${notes.page.max-size:100}")
+    private int maxPageSize;
+
+    @Value("${notes.render-batch.chunk-size:100}")
+    private int renderBatchChunkSize;
+
+    @Value("${spring.servlet.multipart.max-file-size:10MB}")
+    private DataSize maxUploadSize;
+
+    public NoteService(NoteRepository noteRepository,
+                       NoteContentRepository noteContentRepository,
+                       MarkdownService markdownService,
+                       ComputePool computePool,
+                       NoteSearchService noteSearchService,
+                       ObjectMapper objectMapper,
+                       MeterRegistry meterRegistry) {
+        this.noteRepository = noteRepository;
+        this.noteContentRepository = noteContentRepository;
+        this.markdownService = markdownService;
+        this.computePool = computePool;
+        this.noteSearchService = noteSearchService;
+        this.objectMapper = objectMapper;
+        this.contentSize = DistributionSummary.builder("notes.content.size")
+                .description("Size of saved note content")
+                .baseUnit("characters")
+                .register(meterRegistry);
+    }
 
     /**
      * Save a new note
@@ -28,9 +129,10 @@ public class NoteService {
     public NoteResponse saveNote(NoteRequest request) {
         Note note = new Note();
         note.setTitle(request.getTitle());
-        note.setContent(request.getContent());
+        applyContent(note, request.getContent(), ContentBatch.single());
 
-        Note savedNote = noteRepository.save(note);
+        Note savedNote = noteRepository.saveAndFlush(note);
+        noteSearchService.index(savedNote);
         return convertToResponse(savedNote);
     }
 
@@ -48,50 +150,214 @@ public class NoteService {
             throw new IllegalArgumentException("Only .md files are allowed");
         }
 
-        String content = new String(file.getBytes(), StandardCharsets.UTF_8);
+        // Decode straight from the multipart stream, hashing the bytes on the way, instead of copying the
+        // whole file into a byte array first. Strictly decoded UTF-8 encodes back to the same bytes, so the
+        // digest of the upload is the content hash.
+        MessageDigest digest = ContentHash.newDigest();
+        String content;
+        try (InputStream inputStream = new DigestInputStream(file.getInputStream(), digest)) {
+            content = TextDecoding.readUtf8(inputStream, maxUploadSize.toBytes(), file.getSize());
+        }
         String title = fileName.replace(".md", "");
 
         Note note = new Note();
         note.setTitle(title);
-        note.setContent(content);
+        applyContent(note, content, ContentHash.hex(digest), ContentBatch.single());
         note.setFileName(fileName);
 
-        Note savedNote = noteRepository.save(note);
+        Note savedNote = noteRepository.saveAndFlush(note);
+        noteSearchService.index(savedNote);
         return convertToResponse(savedNote);
     }
 
     /**
-     * Get all notes
+     * Save a batch of new notes in one transaction, letting Hibernate group the inserts into JDBC batches
      */
-    public List<NoteResponse> getAllNotes() {
-        return noteRepository.findAllByOrderByCreatedAtDesc()
-                .stream()
+    @Transactional
+    public void saveBatch(List<Note> notes) {
+        List<String> contents = new ArrayList<>(notes.size());
+        List<String> hashes = new ArrayList<>(notes.size());
+        for (Note note : notes) {
+            contents.add(note.getBody().getContent());
+            hashes.add(ContentHash.sha256(note.getBody().getContent()));
+            note.setBody(null);
+        }
+
+        lockContent(hashes);
+        // One lookup for the whole batch; per-note lookups would flush the pending inserts every time
+        ContentBatch batch = ContentBatch.preloaded(
+                noteContentRepository.findReferencesByContentHashIn(new HashSet<>(hashes)));
+        for (int i = 0; i < notes.size(); i++) {
+            applyContent(notes.get(i), contents.get(i), hashes.get(i), batch);
+        }
+        noteRepository.saveAll(notes);
+        noteRepository.flush();
+        noteSearchService.indexAll(notes);
+        // Imported notes are not needed anymore once written
+        entityManager.clear();
+    }
+
+    /**
+     * List note summaries, newest first, one page after the given cursor
+     */
+    public NotePageResponse listNotes(String cursor, Integer limit) {
+        int pageSize = limit == null ? defaultPageSize : Math.min(Math.max(limit, 1), maxPageSize);
+        // Fetch one extra row to find out whether another page follows
+        Pageable pageable = PageRequest.of(0, pageSize + 1);
+
+        List<NoteSummary> notes;
+        if (cursor == null || cursor.isBlank()) {
+            notes = noteRepository.findFirstSummaries(pageable);
+        } else {
+            String position = decodeCursor(cursor);
+            int separator = position.lastIndexOf(CURSOR_SEPARATOR);
+            notes = noteRepository.findSummariesBefore(
+                    LocalDateTime.parse(position.substring(0, separator)),
+                    Long.valueOf(position.substring(separator + 1)),
+                    pageable);
+        }
+
+        String nextCursor = null;
+        if (notes.size() > pageSize) {
+            notes = new ArrayList<>(notes.subList(0, pageSize));
+            nextCursor = encodeCursor(notes.get(pageSize - 1));
+        }
+        return new NotePageResponse(notes, pageSize, nextCursor);
+    }
+
+    /**
+     * Write every note as newline-delimited JSON, streaming rows from the database
+     */
+    @Transactional(readOnly = true)
+    public long exportNotes(OutputStream outputStream) throws IOException {
+        long count = 0;
+        JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream);
+        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        generator.setRootValueSeparator(null);
+
+        try (Stream<Note> notes = noteRepository.streamAllByOrderById()) {
+            Iterator<Note> iterator = notes.iterator();
+            while (iterator.hasNext()) {
+                Note note = iterator.next();
+                generator.writeObject(convertToResponse(note));
+                generator.writeRaw('\n');
+                // Keep the persistence context from growing with the table
+                entityManager.detach(note);
+                count++;
+            }
+        }
+        generator.flush();
+        return count;
+    }
+
+    /**
+     * Render many notes as newline-delimited JSON, written in the order their renders complete.
+     * Notes are loaded a chunk at a time with their content. Current stored renders are written right away;
+     * the others are rendered in parallel on the compute pool, once per distinct content, and are not stored
+     * (RenderMigrationJob refreshes them). Requested ids that do not exist are reported inline.
+     */
+    @Transactional(readOnly = true)
+    public long renderBatch(RenderBatchRequest request, OutputStream outputStream) throws IOException {
+        long count = 0;
+        JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream);
+        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        generator.setRootValueSeparator(null);
+
+        if (request.getIds() != null) {
+            List<Long> ids = request.getIds().stream().filter(Objects::nonNull).distinct().toList();
+            for (int from = 0; from < ids.size(); from += renderBatchChunkSize) {
+                count += renderChunk(ids.subList(from, Math.min(from + renderBatchChunkSize, ids.size())), generator);
+            }
+        } else {
+            long lastId = 0;
+            while (true) {
+                List<Long> ids = noteRepository.findIdsAfter(lastId, request.getUpdatedSince(),
+                        PageRequest.of(0, renderBatchChunkSize));
+                if (ids.isEmpty()) {
+                    break;
+                }
+                count += renderChunk(ids, generator);
+                lastId = ids.get(ids.size() - 1);
+            }
+        }
+        generator.flush();
+        return count;
+    }
+
+    /**
+     * Get the notes following the given id, in id order, with their content
+     */
+    @Transactional(readOnly = true)
+    public List<NoteResponse> getNotesAfter(long afterId, int limit) {
+        List<Long> ids = noteRepository.findIdsAfter(afterId, null, PageRequest.of(0, limit));
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        return noteRepository.findAllWithBodyByIdIn(ids).stream()
+                .sorted(Comparator.comparing(Note::getId))
                 .map(this::convertToResponse)
-                .collect(Collectors.toList());
+                .toList();
     }
 
     /**
      * Get note by ID
      */
     public NoteResponse getNoteById(Long id) {
-        Note note = noteRepository.findById(id)
+        Note note = noteRepository.findWithBodyById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Note not found with id: " + id));
         return convertToResponse(note);
     }
 
+    /**
+     * Get the modification time of a note without loading its content
+     */
+    public NoteVersion getNoteVersion(Long id) {
+        return noteRepository.findVersionById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Note not found with id: " + id));
+    }
+
     /**
      * Update a note
      */
     @Transactional
     public NoteResponse updateNote(Long id, NoteRequest request) {
-        Note note = noteRepository.findById(id)
+        Note note = noteRepository.findLockedById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Note not found with id: " + id));
 
         note.setTitle(request.getTitle());
-        note.setContent(request.getContent());
+        return saveContent(note, request.getContent());
+    }
 
-        Note updatedNote = noteRepository.save(note);
-        return convertToResponse(updatedNote);
+    /**
+     * Apply text edits to a note, made against the given version of it. The note is rejected with a conflict
+     * if it changed since that version, also when a concurrent update it waited for committed first.
+     */
+    @Transactional
+    public NoteResponse patchNote(Long id, NotePatchRequest request) {
+        if (request.getBaseVersion() == null) {
+            throw new IllegalArgumentException("baseVersion is required");
+        }
+        Note note = noteRepository.findLockedById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Note not found with id: " + id));
+        if (!request.getBaseVersion().equals(note.getVersion())) {
+            throw new NoteConflictException("Note " + id + " is at version " + note.getVersion()
+                    + ", not " + request.getBaseVersion());
+        }
+
+        StringBuilder content = new StringBuilder(note.getBody().getContent());
+        for (TextEdit edit : request.getEdits() != null ? request.getEdits() : List.<TextEdit>of()) {
+            int end = edit.getOffset() + edit.getDelete();
+            if (edit.getOffset() < 0 || edit.getDelete() < 0 || end < 0 || end > content.length()) {
+                throw new IllegalArgumentException("Edit at offset " + edit.getOffset() + " deleting "
+                        + edit.getDelete() + " character(s) is outside the note (length " + content.length() + ")");
+            }
+            content.replace(edit.getOffset(), end, edit.getInsert() != null ? edit.getInsert() : "");
+        }
+
+        if (request.getTitle() != null) {
+            note.setTitle(request.getTitle());
+        }
+        return saveContent(note, content.toString());
     }
 
     /**
@@ -99,19 +365,324 @@ public class NoteService {
      */
     @Transactional
     public void deleteNote(Long id) {
-        if (!noteRepository.existsById(id)) {
-            throw new ResourceNotFoundException("Note not found with id: " + id);
+        // Loads the notes row only; the body stays an uninitialized proxy. The row is locked before the content
+        // stripe, in the same order as updates, so that a delete and an update of the note cannot deadlock
+        Note note = noteRepository.findLockedById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Note not found with id: " + id));
+        Long contentId = note.getBody() != null ? note.getBody().getId() : null;
+        lockContent(Collections.singleton(note.getContentHash()));
+        noteRepository.delete(note);
+        // The note references its content, so it must be gone before the content can be deleted
+        noteRepository.flush();
+        if (contentId != null) {
+            releaseContent(contentId, note.getContentHash());
         }
-        noteRepository.deleteById(id);
+        noteSearchService.remove(id);
     }
 
     /**
      * Get note content for processing
      */
     public String getNoteContent(Long id) {
-        Note note = noteRepository.findById(id)
+        return noteRepository.findContentById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Note not found with id: " + id));
+    }
+
+    /**
+     * Get the rendered HTML of a note as a source that writes it out, re-rendering it if the stored version is stale.
+     * The note is loaded up front, so a missing note fails here rather than halfway through a response.
+     * Without render-on-write, stale notes are rendered straight into the writer instead of into a String.
+     */
+    @Transactional
+    public HtmlSource getRenderedHtml(Long id) {
+        Note note = noteRepository.findWithBodyById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Note not found with id: " + id));
+        NoteContent body = note.getBody();
+
+        if (isRenderCurrent(body)) {
+            String html = body.getRenderedHtml();
+            return out -> out.append(html);
+        }
+
+        String content = body.getContent();
+        if (!renderOnWrite) {
+            return out -> markdownService.writeHtml(content, out);
+        }
+
+        String html = markdownService.convertToHtml(content);
+        noteContentRepository.updateRenderedHtml(body.getId(), html, MarkdownService.RENDERER_VERSION);
+        return out -> out.append(html);
+    }
+
+    /**
+     * Get the headings of a note with the byte range of each section
+     */
+    @Transactional
+    public NoteOutline getOutline(Long id) {
+        return new NoteOutline(id, loadOutline(id).headings());
+    }
+
+    /**
+     * Get the HTML of one section of a note, found by its heading anchor.
+     * Only the section is read and rendered, from the byte range stored in the note's outline; link reference
+     * definitions outside the section do not apply to it.
+     */
+    @Transactional
+    public HtmlSource getSectionHtml(Long id, String anchor) {
+        LoadedOutline outline = loadOutline(id);
+        NoteHeading heading = outline.headings().stream()
+                .filter(candidate -> candidate.getAnchor().equals(anchor))
+                .findFirst()
+                .orElseThrow(() -> new ResourceNotFoundException("Section not found in note " + id + ": " + anchor));
+
+        String markdown = noteContentRepository.readContentRange(outline.contentId(), heading.getStart(),
+                Math.toIntExact(heading.getEnd() - heading.getStart()));
+        String html = markdownService.convertToHtml(markdown);
+        return out -> out.append(html);
+    }
+
+    /**
+     * Re-render a batch of notes rendered by an older renderer version
+     */
+    @Transactional
+    public int refreshStaleRenders(int batchSize) {
+        List<NoteContent> staleContents = noteContentRepository.findStaleRenders(MarkdownService.RENDERER_VERSION,
+                PageRequest.of(0, batchSize));
+        for (NoteContent body : staleContents) {
+            String html = markdownService.convertToHtml(body.getContent());
+            noteContentRepository.updateRenderedHtml(body.getId(), html, MarkdownService.RENDERER_VERSION);
+        }
+        return staleContents.size();
+    }
+
+    /**
+     * Point a note at new content, release the content it had and flush it, which fails on a concurrent update
+     */
+    private NoteResponse saveContent(Note note, String content) {
+        String previousHash = note.getContentHash();
+        Long previousContentId = applyContent(note, content, ContentBatch.single());
+
+        Note updatedNote = noteRepository.saveAndFlush(note);
+        if (previousContentId != null) {
+            releaseContent(previousContentId, previousHash);
+        }
+        noteSearchService.index(updatedNote);
+        return convertToResponse(updatedNote);
+    }
+
+    private Long applyContent(Note note, String content, ContentBatch batch) {
+        if (content == null) {
+            throw new IllegalArgumentException("Note content is required");
+        }
+        return applyContent(note, content, ContentHash.sha256(content), batch);
+    }
+
+    /**
+     * Point a note at the stored content with the given hash, storing the content (and, in render-on-write mode,
+     * its rendered HTML) only if no note has it yet. Returns the id of the content the note pointed at before,
+     * which the caller releases once the note is flushed, or null if the content did not change.
+     */
+    private Long applyContent(Note note, String content, String hash, ContentBatch batch) {
+        contentSize.record(content.length());
+
+        NoteContent previous = note.getBody();
+        if (previous != null && hash.equals(note.getContentHash())) {
+            return null;
+        }
+        if (batch.storedIds == null) {
+            lockContent(Arrays.asList(hash, note.getContentHash()));
+        }
+
+        NoteContent body = batch.created.get(hash);
+        if (body != null) {
+            body.setRefCount(body.getRefCount() + 1);
+        } else {
+            Long storedId = batch.storedIds != null
+                    ? batch.storedIds.get(hash)
+                    : noteContentRepository.findIdByContentHash(hash).orElse(null);
+            if (storedId != null) {
+                noteContentRepository.addReferences(storedId, 1);
+                // A reference only; the stored content and render are not read
+                body = noteContentRepository.getReferenceById(storedId);
+            } else {
+                body = new NoteContent(content);
+                body.setContentHash(hash);
+                body.setRefCount(1);
+                if (renderOnWrite) {
+                    body.setRenderedHtml(markdownService.convertToHtml(content));
+                    body.setRendererVersion(MarkdownService.RENDERER_VERSION);
+                    body.setOutline(writeOutline(markdownService.extractOutline(content)));
+                }
+                batch.created.put(hash, body);
+            }
+        }
+
+        note.setBody(body);
+        note.setContentHash(hash);
+        return previous != null ? previous.getId() : null;
+    }
+
+    /**
+     * Lock the given content hashes until the current transaction completes, so that no two transactions store
+     * the same new content, or reference content that another is deleting. The embedded database is only ever
+     * used by this one application instance, so locks in memory are enough.
+     */
+    private void lockContent(Collection<String> hashes) {
+        // Fixed order, so that transactions locking several stripes cannot deadlock
+        SortedSet<Integer> stripes = new TreeSet<>();
+        for (String hash : hashes) {
+            if (hash != null) {
+                stripes.add(Math.floorMod(hash.hashCode(), contentLocks.length));
+            }
+        }
+
+        List<ReentrantLock> locks = new ArrayList<>(stripes.size());
+        for (int stripe : stripes) {
+            ReentrantLock lock = contentLocks[stripe];
+            lock.lock();
+            locks.add(lock);
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                locks.forEach(ReentrantLock::unlock);
+            }
+        });
+    }
+
+    /**
+     * Drop a note's reference to stored content, deleting the content and its cached render once no note has it
+     */
+    private void releaseContent(Long contentId, String contentHash) {
+        noteContentRepository.addReferences(contentId, -1);
+        if (noteContentRepository.deleteIfUnreferenced(contentId) > 0) {
+            markdownService.evictFromCache(contentHash);
+        }
+    }
+
+    private static ReentrantLock[] newContentLocks() {
+        ReentrantLock[] locks = new ReentrantLock[CONTENT_LOCK_STRIPES];
+        for (int i = 0; i < locks.length; i++) {
+            locks[i] = new ReentrantLock();
+        }
+        return locks;
+    }
+
+    private String encodeCursor(NoteSummary last) {
+        String position = last.getCreatedAt().toString() + CURSOR_SEPARATOR + last.getId();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(position.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private String decodeCursor(String cursor) {
+        try {
+            String position = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = position.lastIndexOf(CURSOR_SEPARATOR);
+            // Validate both parts before they reach the query
+            LocalDateTime.parse(position.substring(0, Math.max(separator, 0)));
+            Long.parseLong(position.substring(separator + 1));
+            return position;
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor);
+        }
+    }
+
+    /**
+     * Read the stored outline of a note, extracting and storing it first for content saved without one
+     */
+    private LoadedOutline loadOutline(Long id) {
+        ContentOutline stored = noteRepository.findOutlineById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Note not found with id: " + id));
-        return note.getContent();
+        if (stored.getOutline() != null) {
+            try {
+                return new LoadedOutline(stored.getContentId(),
+                        objectMapper.readValue(stored.getOutline(), new TypeReference<List<NoteHeading>>() {
+                        }));
+            } catch (JsonProcessingException e) {
+                throw new IllegalStateException("Stored outline of note " + id + " is corrupt", e);
+            }
+        }
+
+        String content = noteContentRepository.findById(stored.getContentId()).orElseThrow().getContent();
+        List<NoteHeading> headings = markdownService.extractOutline(content);
+        noteContentRepository.updateOutline(stored.getContentId(), writeOutline(headings));
+        return new LoadedOutline(stored.getContentId(), headings);
+    }
+
+    private String writeOutline(List<NoteHeading> headings) {
+        try {
+            return objectMapper.writeValueAsString(headings);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize a note outline", e);
+        }
+    }
+
+    private int renderChunk(List<Long> ids, JsonGenerator generator) throws IOException {
+        Map<Long, Note> notes = new HashMap<>();
+        for (Note note : noteRepository.findAllWithBodyByIdIn(ids)) {
+            notes.put(note.getId(), note);
+        }
+
+        // Notes waiting for a render, by content id
+        Map<Long, List<Note>> pending = new HashMap<>();
+        CompletionService<RenderedContent> renders = computePool.newCompletionService();
+        Map<Future<RenderedContent>, Long> renderedContentIds = new HashMap<>();
+        for (Long id : ids) {
+            Note note = notes.get(id);
+            if (note == null) {
+                writeRendered(generator, new RenderedNote(id, null, null, "Note not found with id: " + id));
+                continue;
+            }
+
+            NoteContent body = note.getBody();
+            if (isRenderCurrent(body)) {
+                writeRendered(generator, new RenderedNote(id, note.getTitle(), body.getRenderedHtml(), null));
+                continue;
+            }
+            pending.computeIfAbsent(body.getId(), contentId -> {
+                String content = body.getContent();
+                renderedContentIds.put(
+                        renders.submit(() -> new RenderedContent(contentId, markdownService.convertToHtml(content))),
+                        contentId);
+                return new ArrayList<>();
+            }).add(note);
+        }
+
+        for (int remaining = pending.size(); remaining > 0; remaining--) {
+            Future<RenderedContent> render = null;
+            try {
+                render = renders.take();
+                RenderedContent rendered = render.get();
+                for (Note note : pending.remove(rendered.contentId())) {
+                    writeRendered(generator, new RenderedNote(note.getId(), note.getTitle(), rendered.html(), null));
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while rendering notes", e);
+            } catch (ExecutionException e) {
+                // The notes of a failed render stay pending and are reported below
+                log.warn("Rendering content {} failed", renderedContentIds.get(render), e.getCause());
+            }
+        }
+        for (List<Note> failed : pending.values()) {
+            for (Note note : failed) {
+                writeRendered(generator, new RenderedNote(note.getId(), null, null, "Rendering failed"));
+            }
+        }
+
+        generator.flush();
+        // Keep the persistence context from growing with the batch
+        entityManager.clear();
+        return notes.size();
+    }
+
+    private void writeRendered(JsonGenerator generator, RenderedNote rendered) throws IOException {
+        generator.writeObject(rendered);
+        generator.writeRaw('\n');
+    }
+
+    private boolean isRenderCurrent(NoteContent body) {
+        return body.getRenderedHtml() != null
+                && Objects.equals(body.getRendererVersion(), MarkdownService.RENDERER_VERSION);
     }
 
     /**
@@ -121,11 +692,51 @@ public class NoteService {
         return new NoteResponse(
                 note.getId(),
                 note.getTitle(),
-                note.getContent(),
+                note.getBody().getContent(),
                 note.getFileName(),
                 note.getCreatedAt(),
-                note.getUpdatedAt()
+                note.getUpdatedAt(),
+                note.getVersion()
         );
     }
-}
 
+    /**
+     * HTML that is written out on demand, e.g. into a response
+     */
+    @FunctionalInterface
+    public interface HtmlSource {
+        void writeTo(Appendable out) throws IOException;
+    }
+
+    private record LoadedOutline(Long contentId, List<NoteHeading> headings) {
+    }
+
+    /**
+     * Stored content looked up for a save: either ids of stored content preloaded for a batch, or null to look
+     * each hash up, plus the content created by the save itself
+     */
+    private static final class ContentBatch {
+
+        private final Map<String, Long> storedIds;
+        private final Map<String, NoteContent> created = new HashMap<>();
+
+        private ContentBatch(Map<String, Long> storedIds) {
+            this.storedIds = storedIds;
+        }
+
+        static ContentBatch single() {
+            return new ContentBatch(null);
+        }
+
+        static ContentBatch preloaded(List<ContentReference> references) {
+            Map<String, Long> storedIds = new HashMap<>();
+            for (ContentReference reference : references) {
+                storedIds.put(reference.getContentHash(), reference.getId());
+            }
+            return new ContentBatch(storedIds);
+        }
+    }
+
+    private record RenderedContent(Long contentId, String html) {
+    }
+}
@@ -0,0 +1,38 @@
+package com.markdown.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Background job that re-renders notes whose stored HTML was produced by an older renderer version.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "markdown.render-on-write", havingValue = "true", matchIfMissing = true)
+public class RenderMigrationJob {
+
+    private final NoteService noteService;
+
+    @Value("${markdown.render-migration.batch-size:100}")
+    private int batchSize;
+
+    @Scheduled(initialDelayString = "${markdown.render-migration.initial-delay-ms:10000}",
+            fixedDelayString = "${markdown.render-migration.interval-ms:3600000}")
+    public void migrateStaleRenders() {
+        int total = 0;
+        int migrated;
+        do {
+            migrated = noteService.refreshStaleRenders(batchSize);
+            total += migrated;
+        } while (migrated == batchSize);
+
+        if (total > 0) {
+            log.info("Re-rendered {} note(s) to renderer version {}", total, MarkdownService.RENDERER_VERSION);
+        }
+    }
+}
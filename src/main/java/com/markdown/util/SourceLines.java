@@ -0,0 +1,49 @@
+package com.markdown.util;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Maps the line indexes of CommonMark source spans back to offsets in the markdown text.
+ */
+public final class SourceLines {
+
+    private SourceLines() {
+    }
+
+    /**
+     * Offsets at which each line starts, splitting lines the way the CommonMark parser does
+     */
+    public static int[] lineStarts(String text) {
+        List<Integer> starts = new ArrayList<>();
+        starts.add(0);
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '\n' || (c == '\r' && (i + 1 == text.length() || text.charAt(i + 1) != '\n'))) {
+                starts.add(i + 1);
+            }
+        }
+        return starts.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    /**
+     * Number of bytes the text between two offsets takes in UTF-8, without encoding it
+     */
+    public static long utf8Length(CharSequence text, int from, int to) {
+        long length = 0;
+        for (int i = from; i < to; i++) {
+            char c = text.charAt(i);
+            if (c < 0x80) {
+                length++;
+            } else if (c < 0x800) {
+                length += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < to && Character.isLowSurrogate(text.charAt(i + 1))) {
+                length += 4;
+                i++;
+            } else {
+                length += 3;
+            }
+        }
+        return length;
+    }
+}
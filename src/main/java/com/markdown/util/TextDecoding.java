@@ -0,0 +1,93 @@
+package com.markdown.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Strict, incremental UTF-8 decoding of uploaded markdown.
+ */
+public final class TextDecoding {
+
+    private static final int BUFFER_SIZE = 8192;
+    private static final int MAX_CAPACITY = Integer.MAX_VALUE - 8;
+
+    private TextDecoding() {
+    }
+
+    /**
+     * Decode a stream as UTF-8, rejecting malformed input and content larger than maxBytes.
+     * The stream is read to its end but not closed.
+     */
+    public static String readUtf8(InputStream inputStream, long maxBytes) throws IOException {
+        return readUtf8(inputStream, maxBytes, 0);
+    }
+
+    /**
+     * Decode a stream as UTF-8 like {@link #readUtf8(InputStream, long)}, sizing the buffer for expectedBytes
+     * up front so that large content is not copied each time the buffer grows.
+     */
+    public static String readUtf8(InputStream inputStream, long maxBytes, long expectedBytes) throws IOException {
+        CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPORT)
+                .onUnmappableCharacter(CodingErrorAction.REPORT);
+        LimitedInputStream limited = new LimitedInputStream(inputStream, maxBytes);
+        Reader reader = new InputStreamReader(limited, decoder);
+
+        // UTF-8 never decodes to more chars than bytes
+        long capacity = Math.min(Math.min(expectedBytes, maxBytes), MAX_CAPACITY);
+        StringBuilder text = new StringBuilder((int) Math.max(capacity, 16));
+        char[] buffer = new char[BUFFER_SIZE];
+        int read;
+        try {
+            while ((read = reader.read(buffer)) != -1) {
+                text.append(buffer, 0, read);
+            }
+        } catch (CharacterCodingException e) {
+            throw new IllegalArgumentException("Content is not valid UTF-8");
+        }
+        return text.toString();
+    }
+
+    private static final class LimitedInputStream extends InputStream {
+
+        private final InputStream delegate;
+        private final long maxBytes;
+        private long count;
+
+        private LimitedInputStream(InputStream delegate, long maxBytes) {
+            this.delegate = delegate;
+            this.maxBytes = maxBytes;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = delegate.read();
+            if (b != -1) {
+                countBytes(1);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int read = delegate.read(buffer, offset, length);
+            if (read > 0) {
+                countBytes(read);
+            }
+            return read;
+        }
+
+        private void countBytes(int read) {
+            count += read;
+            if (count > maxBytes) {
+                throw new IllegalArgumentException("Content exceeds the maximum size of " + maxBytes + " bytes");
+            }
+        }
+    }
+}